@@ -44,13 +44,14 @@ public interface ConfigListener {
    *     Listener instance that forwards changes for the path to the consumer.
    */
   static ConfigListener forPath(String path, Consumer<Config> consumer) {
-    return (previous, current) -> {
+    ConfigListener listener = (previous, current) -> {
       Config c1 = (path == null) ? previous : ListenerUtils.getConfig(previous, path);
       Config c2 = (path == null) ? current : ListenerUtils.getConfig(current, path);
       if (ListenerUtils.hasChanged(c1, c2)) {
         consumer.accept(c2);
       }
     };
+    return (path == null) ? listener : new PathListener(path, listener);
   }
 
   /**
@@ -403,21 +404,21 @@ public interface ConfigListener {
     if (property == null) {
       throw new NullPointerException("property cannot be null");
     }
-    return (previous, current) -> {
+    return new PathListener(property, (previous, current) -> {
       T v1 = ListenerUtils.getOrNull(previous, property, accessor);
       T v2 = ListenerUtils.getOrNull(current, property, accessor);
       if (ListenerUtils.hasChanged(v1, v2)) {
         consumer.accept(v2);
       }
-    };
+    });
   }
 
   /**
    * Invoked when the config is updated by a call to
    * {@link DynamicConfigManager#setOverrideConfig(Config)}. This method will be invoked
-   * from the thread setting the override. It should be cheap to allow changes to quickly
-   * propagate to all listeners. If an exception is thrown, then a warning will be logged
-   * and the manager will move on.
+   * from the thread setting the override unless the manager was created with an executor.
+   * It should be cheap to allow changes to quickly propagate to all listeners. If an
+   * exception is thrown, then a warning will be logged and the manager will move on.
    *
    * @param previous
    *     Previous config instance.
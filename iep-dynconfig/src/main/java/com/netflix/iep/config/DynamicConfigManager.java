@@ -15,8 +15,13 @@
  */
 package com.netflix.iep.config;
 
+import com.netflix.spectator.api.Registry;
 import com.typesafe.config.Config;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
 /**
  * Base interface for a config manager that allows the base config to be updated with
  * an override layer dynamically at runtime.
@@ -35,6 +40,46 @@ public interface DynamicConfigManager {
     return new DynamicConfigManagerImpl(baseConfig);
   }
 
+  /**
+   * Create a new instance of a dynamic config manager. The time for each listener
+   * invocation will be recorded with the timer {@code iep.config.listenerTime}. The
+   * {@code id} tag is the path for listeners created with the helpers on
+   * {@link ConfigListener} or the class name for other listeners.
+   *
+   * @param baseConfig
+   *     Base config layer that will be used as a fallback to the dynamic layer.
+   * @param registry
+   *     Registry used to record the time for each listener invocation.
+   * @return
+   *     Config manager instance.
+   */
+  static DynamicConfigManager create(Config baseConfig, Registry registry) {
+    return new DynamicConfigManagerImpl(baseConfig, registry, null);
+  }
+
+  /**
+   * Create a new instance of a dynamic config manager that invokes the listeners using
+   * the executor. A slow listener will not block the thread setting the override or the
+   * other listeners. Updates for a given listener are delivered in order, and if several
+   * updates happen while the listener is busy, it will only get invoked once with the
+   * latest config. The initial invocation when a listener is added is still done on the
+   * thread calling {@link #addListener(ConfigListener)}, so state set by the listener is
+   * available once it returns.
+   *
+   * @param baseConfig
+   *     Base config layer that will be used as a fallback to the dynamic layer.
+   * @param registry
+   *     Registry used to record the time for each listener invocation. See
+   *     {@link #create(Config, Registry)} for more details.
+   * @param executor
+   *     Executor used for invoking the listeners.
+   * @return
+   *     Config manager instance.
+   */
+  static DynamicConfigManager create(Config baseConfig, Registry registry, Executor executor) {
+    return new DynamicConfigManagerImpl(baseConfig, registry, executor);
+  }
+
   /**
    * Returns the current config instance, i.e., override with fallback to the base config.
    */
@@ -48,7 +93,7 @@ public interface DynamicConfigManager {
   /**
    * Add a listener that will get invoked once when added and then each time the override config
    * layer is updated. When invoked for the initialization, the previous config value will be
-   * {@code null}.
+   * {@code null}. The initialization is done on the calling thread before this method returns.
    */
   void addListener(ConfigListener listener);
 
@@ -56,4 +101,61 @@ public interface DynamicConfigManager {
    * Remove the listener so it will no longer get invoked.
    */
   void removeListener(ConfigListener listener);
+
+  /**
+   * Create a handle for the current value of a property. The value will be converted
+   * using the accessor when the property changes, so reading the value from the handle
+   * does not need to access the config. The handle keeps a listener registered with
+   * this manager until it is closed, see {@link DynamicProperty} for more details.
+   *
+   * @param path
+   *     Path for the property in the config.
+   * @param defaultValue
+   *     Value to use if the property is not present.
+   * @param accessor
+   *     Function used to access the property value from the config.
+   * @return
+   *     Handle for the current value of the property.
+   */
+  default <T> DynamicProperty<T> property(
+      String path, T defaultValue, BiFunction<Config, String, T> accessor) {
+    DynamicProperty<T> property = new DynamicProperty<>(this, path, defaultValue, accessor);
+    addListener(property.listener());
+    return property;
+  }
+
+  /** Create a handle for the current value of a boolean property. */
+  default DynamicProperty<Boolean> booleanProperty(String path, boolean defaultValue) {
+    return property(path, defaultValue, Config::getBoolean);
+  }
+
+  /** Create a handle for the current value of an integer property. */
+  default DynamicProperty<Integer> intProperty(String path, int defaultValue) {
+    return property(path, defaultValue, Config::getInt);
+  }
+
+  /** Create a handle for the current value of a long property. */
+  default DynamicProperty<Long> longProperty(String path, long defaultValue) {
+    return property(path, defaultValue, Config::getLong);
+  }
+
+  /** Create a handle for the current value of a double property. */
+  default DynamicProperty<Double> doubleProperty(String path, double defaultValue) {
+    return property(path, defaultValue, Config::getDouble);
+  }
+
+  /** Create a handle for the current value of a string property. */
+  default DynamicProperty<String> stringProperty(String path, String defaultValue) {
+    return property(path, defaultValue, Config::getString);
+  }
+
+  /** Create a handle for the current value of a duration property. */
+  default DynamicProperty<Duration> durationProperty(String path, Duration defaultValue) {
+    return property(path, defaultValue, Config::getDuration);
+  }
+
+  /** Create a handle for the current value of a memory size property in bytes. */
+  default DynamicProperty<Long> bytesProperty(String path, long defaultValue) {
+    return property(path, defaultValue, Config::getBytes);
+  }
 }
@@ -15,12 +15,20 @@
  */
 package com.netflix.iep.config;
 
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Default implementation of the dynamic config manager interface.
@@ -32,12 +40,33 @@ final class DynamicConfigManagerImpl implements DynamicConfigManager {
   private final Config baseConfig;
   private volatile Config current;
 
-  private final Set<ConfigListener> listeners = ConcurrentHashMap.newKeySet();
+  private final Registry registry;
+  private final Executor executor;
+
+  private final ListenerIndex listeners = new ListenerIndex();
+  private final Map<ConfigListener, ListenerState> states = new ConcurrentHashMap<>();
 
   /** Create a new instance. */
   DynamicConfigManagerImpl(Config baseConfig) {
+    this(baseConfig, new NoopRegistry(), null);
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param baseConfig
+   *     Base config layer that will be used as a fallback to the dynamic layer.
+   * @param registry
+   *     Registry used to record the time for each listener invocation.
+   * @param executor
+   *     Executor used to invoke the listeners. If null, then the listeners will be invoked
+   *     on the thread that is setting the override.
+   */
+  DynamicConfigManagerImpl(Config baseConfig, Registry registry, Executor executor) {
     this.baseConfig = baseConfig;
     this.current = baseConfig;
+    this.registry = registry;
+    this.executor = executor;
   }
 
   @Override
@@ -48,26 +77,136 @@ final class DynamicConfigManagerImpl implements DynamicConfigManager {
   @Override
   public synchronized void setOverrideConfig(Config override) {
     Config previous = current;
-    current = override.withFallback(baseConfig).resolve();
-    listeners.forEach(listener -> invokeListener(listener, previous, current));
+    Config updated = override.withFallback(baseConfig).resolve();
+    current = updated;
+
+    // Only invoke the listeners that could be impacted by the paths that changed
+    listeners.affected(previous, updated)
+        .forEach(listener -> dispatch(listener, previous, updated));
   }
 
-  private void invokeListener(ConfigListener listener, Config previous, Config current) {
-    try {
-      listener.onUpdate(previous, current);
-    } catch (Exception e) {
-      LOGGER.warn("failed to update a listener", e);
+  private void dispatch(ConfigListener listener, Config previous, Config current) {
+    ListenerState state = states.get(listener);
+    if (state != null) {
+      if (executor == null) {
+        state.invoke(previous, current);
+      } else {
+        state.submit(previous, current);
+      }
     }
   }
 
   @Override
-  public void addListener(ConfigListener listener) {
+  public synchronized void addListener(ConfigListener listener) {
+    ListenerState state = states.computeIfAbsent(listener, ListenerState::new);
     listeners.add(listener);
-    invokeListener(listener, null, current);
+
+    // The initial invocation is always on the calling thread, even if an executor is used,
+    // so that state set by the listener is available when this method returns. Holding
+    // the lock ensures an update cannot be dispatched to the listener concurrently.
+    state.invoke(null, current);
   }
 
   @Override
   public void removeListener(ConfigListener listener) {
     listeners.remove(listener);
+    ListenerState state = states.remove(listener);
+    if (state != null) {
+      state.cancel();
+    }
+  }
+
+  /** Return the id used to tag the metrics for a listener. */
+  static String listenerId(ConfigListener listener) {
+    if (listener instanceof PathListener) {
+      return ((PathListener) listener).path();
+    }
+    // Strip the suffix for lambdas as it is not stable across runs
+    String name = listener.getClass().getName();
+    int pos = name.indexOf("$$Lambda");
+    return pos > 0 ? name.substring(0, pos) : name;
+  }
+
+  /** Pair of configs for an update that has not yet been delivered to a listener. */
+  private static final class Update {
+    private final Config previous;
+    private final Config current;
+
+    Update(Config previous, Config current) {
+      this.previous = previous;
+      this.current = current;
+    }
+  }
+
+  /**
+   * State for invoking a listener. When using an executor, at most one task is scheduled
+   * at a time for a given listener so the updates are delivered in order. If more updates
+   * come in before the task runs, then they are combined so the listener will only see the
+   * latest config. The previous config is kept from the first pending update so that it
+   * is the last config that was delivered to the listener.
+   */
+  private final class ListenerState implements Runnable {
+    private final ConfigListener listener;
+    private final Timer timer;
+
+    private final AtomicReference<Update> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean cancelled;
+
+    ListenerState(ConfigListener listener) {
+      this.listener = listener;
+      this.timer = registry.timer("iep.config.listenerTime", "id", listenerId(listener));
+    }
+
+    void invoke(Config previous, Config current) {
+      long start = registry.clock().monotonicTime();
+      try {
+        listener.onUpdate(previous, current);
+      } catch (Exception e) {
+        LOGGER.warn("failed to update a listener", e);
+      } finally {
+        timer.record(registry.clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    void submit(Config previous, Config current) {
+      pending.getAndUpdate(u -> (u == null)
+          ? new Update(previous, current)
+          : new Update(u.previous, current));
+      schedule();
+    }
+
+    private void schedule() {
+      if (!cancelled && scheduled.compareAndSet(false, true)) {
+        try {
+          executor.execute(this);
+        } catch (RejectedExecutionException e) {
+          LOGGER.warn("failed to schedule update for a listener", e);
+          scheduled.set(false);
+        }
+      }
+    }
+
+    void cancel() {
+      cancelled = true;
+      pending.set(null);
+    }
+
+    @Override
+    public void run() {
+      try {
+        Update update = pending.getAndSet(null);
+        if (update != null && !cancelled) {
+          invoke(update.previous, update.current);
+        }
+      } finally {
+        scheduled.set(false);
+      }
+
+      // Updates may have come in while the listener was running
+      if (pending.get() != null) {
+        schedule();
+      }
+    }
   }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.config;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Handle for the current value of a dynamic property. The value is converted to the
+ * target type when the property is changed by an update to the manager, so calling
+ * {@link #get()} is just a volatile read and is cheap enough to use on hot paths such as
+ * checking a feature flag for each request.
+ *
+ * <p>Handles are created with methods such as {@link DynamicConfigManager#intProperty(String,
+ * int)}. Each handle registers a listener with the manager that stays registered until
+ * the handle is closed. They should typically be created once and stored rather than
+ * created for each access. If a handle is only needed for the lifetime of some other
+ * object, then it should be closed along with that object to avoid leaking listeners.
+ * After it is closed, the handle will keep returning the last value.
+ *
+ * @param <T>
+ *     Type of the property value.
+ */
+public final class DynamicProperty<T> implements Supplier<T>, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DynamicProperty.class);
+
+  private final DynamicConfigManager manager;
+  private final String path;
+  private final T defaultValue;
+  private final BiFunction<Config, String, T> accessor;
+  private final ConfigListener listener;
+
+  private volatile T value;
+
+  DynamicProperty(
+      DynamicConfigManager manager,
+      String path,
+      T defaultValue,
+      BiFunction<Config, String, T> accessor) {
+    if (path == null) {
+      throw new NullPointerException("path cannot be null");
+    }
+    this.manager = manager;
+    this.path = path;
+    this.defaultValue = defaultValue;
+    this.accessor = accessor;
+    this.listener = new PathListener(path, (previous, current) -> update(current));
+    this.value = defaultValue;
+  }
+
+  /** Listener that should be registered with the manager to keep the value updated. */
+  ConfigListener listener() {
+    return listener;
+  }
+
+  /** Update the value based on the config. */
+  void update(Config config) {
+    try {
+      value = config.hasPath(path) ? accessor.apply(config, path) : defaultValue;
+    } catch (RuntimeException e) {
+      // Keep the previous value if the new one cannot be converted to the type
+      LOGGER.warn("failed to update property {}, keeping previous value: {}", path, value, e);
+    }
+  }
+
+  /** Return the path for the property. */
+  public String path() {
+    return path;
+  }
+
+  /** Return the current value for the property. */
+  @Override
+  public T get() {
+    return value;
+  }
+
+  /**
+   * Remove the listener from the manager so the value will no longer get updated. Calling
+   * close more than once has no effect.
+   */
+  @Override
+  public void close() {
+    manager.removeListener(listener);
+  }
+
+  @Override
+  public String toString() {
+    return "DynamicProperty(" + path + "=" + value + ")";
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Index of the listeners registered with the manager. Listeners with a known path, see
+ * {@link PathListener}, are stored in a trie based on the path elements. For an update,
+ * the changed paths are computed once by comparing the two configs and then only the
+ * listeners with a path that overlaps one of the changed paths need to be invoked. Other
+ * listeners are always invoked.
+ */
+final class ListenerIndex {
+
+  private final Set<ConfigListener> unindexed = ConcurrentHashMap.newKeySet();
+  private final Node root = new Node();
+
+  /** Add a listener to the index. */
+  void add(ConfigListener listener) {
+    List<String> path = pathElements(listener);
+    if (path == null) {
+      unindexed.add(listener);
+    } else {
+      Node node = root;
+      for (String key : path) {
+        node = node.children.computeIfAbsent(key, k -> new Node());
+      }
+      node.listeners.add(listener);
+    }
+  }
+
+  /** Remove a listener from the index. */
+  void remove(ConfigListener listener) {
+    List<String> path = pathElements(listener);
+    if (path == null) {
+      unindexed.remove(listener);
+    } else {
+      Node node = root;
+      for (String key : path) {
+        node = node.children.get(key);
+        if (node == null) {
+          return;
+        }
+      }
+      node.listeners.remove(listener);
+    }
+  }
+
+  private static List<String> pathElements(ConfigListener listener) {
+    if (listener instanceof PathListener) {
+      String path = ((PathListener) listener).path();
+      try {
+        return path.isEmpty() ? null : ConfigUtil.splitPath(path);
+      } catch (ConfigException e) {
+        // Invalid paths will never match, but fallback to always invoking the listener
+        // so the behavior is the same as if the path was not known
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the set of listeners that may be impacted by the update from the previous to
+   * the current config.
+   */
+  Set<ConfigListener> affected(Config previous, Config current) {
+    Set<ConfigListener> result = new HashSet<>(unindexed);
+    diff(previous.root(), current.root(), new ArrayList<>(), path -> collect(path, result));
+    return result;
+  }
+
+  /**
+   * Add the listeners that overlap with a changed path. That includes listeners where the
+   * path is a prefix of the changed path and listeners where the changed path is a prefix
+   * of the listener path. The latter can happen if an object is added or removed, or the
+   * type of value changes.
+   */
+  private void collect(List<String> path, Set<ConfigListener> result) {
+    Node node = root;
+    for (String key : path) {
+      node = node.children.get(key);
+      if (node == null) {
+        return;
+      }
+      result.addAll(node.listeners);
+    }
+    for (Node child : node.children.values()) {
+      child.addAll(result);
+    }
+  }
+
+  /**
+   * Compare the two objects and invoke the consumer with the path for each value that is
+   * different. If a value is an object in both, then it will recurse so that the path is
+   * for the leaf values that are different. The path list is reused for each call, so the
+   * consumer should not retain it.
+   */
+  static void diff(
+      ConfigObject previous,
+      ConfigObject current,
+      List<String> path,
+      Consumer<List<String>> changed) {
+    for (Map.Entry<String, ConfigValue> entry : previous.entrySet()) {
+      ConfigValue v1 = entry.getValue();
+      ConfigValue v2 = current.get(entry.getKey());
+      if (v1 == v2) {
+        continue;
+      }
+      path.add(entry.getKey());
+      if (v1 instanceof ConfigObject && v2 instanceof ConfigObject) {
+        diff((ConfigObject) v1, (ConfigObject) v2, path, changed);
+      } else if (!v1.equals(v2)) {
+        changed.accept(path);
+      }
+      path.remove(path.size() - 1);
+    }
+    for (String key : current.keySet()) {
+      if (!previous.containsKey(key)) {
+        path.add(key);
+        changed.accept(path);
+        path.remove(path.size() - 1);
+      }
+    }
+  }
+
+  /** Return the paths that are different between two configs. Used for testing. */
+  static List<List<String>> changedPaths(Config previous, Config current) {
+    List<List<String>> paths = new ArrayList<>();
+    diff(previous.root(), current.root(), new ArrayList<>(), p -> paths.add(new ArrayList<>(p)));
+    return Collections.unmodifiableList(paths);
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new ConcurrentHashMap<>();
+    private final Set<ConfigListener> listeners = ConcurrentHashMap.newKeySet();
+
+    private void addAll(Set<ConfigListener> result) {
+      result.addAll(listeners);
+      for (Node child : children.values()) {
+        child.addAll(result);
+      }
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.config;
+
+import com.typesafe.config.Config;
+
+/**
+ * Listener that is only interested in changes for a given path. The path is used by
+ * the manager to skip the listener for updates that do not change anything under the
+ * path. The wrapped listener should still check if the value has changed as the
+ * manager may invoke it for changes that do not impact the value, e.g., if the
+ * update changes the format of a duration without changing the value.
+ */
+final class PathListener implements ConfigListener {
+
+  private final String path;
+  private final ConfigListener listener;
+
+  PathListener(String path, ConfigListener listener) {
+    this.path = path;
+    this.listener = listener;
+  }
+
+  /** Return the path that the listener is interested in. */
+  String path() {
+    return path;
+  }
+
+  @Override
+  public void onUpdate(Config previous, Config current) {
+    listener.onUpdate(previous, current);
+  }
+}
@@ -15,6 +15,10 @@
  */
 package com.netflix.iep.config;
 
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigFactory;
@@ -27,8 +31,17 @@ import org.junit.runners.JUnit4;
 import java.time.Duration;
 import java.time.Period;
 import java.time.temporal.TemporalAmount;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -119,6 +132,18 @@ public class DynamicConfigManagerTest {
     Assert.assertEquals(3, value.get());
   }
 
+  @Test
+  public void listenerNotInvokedForOtherPaths() {
+    AtomicInteger calls = new AtomicInteger();
+    DynamicConfigManager mgr = newInstance(config("a.b = 1", "c.d = 1"));
+    mgr.addListener(new PathListener("a", (previous, current) -> calls.incrementAndGet()));
+    Assert.assertEquals(1, calls.get());
+    mgr.setOverrideConfig(config("c.d = 2"));
+    Assert.assertEquals(1, calls.get());
+    mgr.setOverrideConfig(config("a.b = 2"));
+    Assert.assertEquals(2, calls.get());
+  }
+
   @Test
   public void listenerRemove() {
     AtomicInteger value = new AtomicInteger();
@@ -134,6 +159,259 @@ public class DynamicConfigManagerTest {
     Assert.assertEquals(2, value.get());
   }
 
+  /** Executor that queues the tasks so the test can control when they run. */
+  private static final class ManualExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+
+  @Test
+  public void asyncListener() {
+    ManualExecutor executor = new ManualExecutor();
+    DynamicConfigManager mgr =
+        DynamicConfigManager.create(config("a.b = 1"), new NoopRegistry(), executor);
+
+    // Initial invocation is synchronous so the value is set when addListener returns
+    AtomicInteger value = new AtomicInteger();
+    mgr.addListener(ConfigListener.forInt("a.b", value::set));
+    Assert.assertEquals(0, executor.size());
+    Assert.assertEquals(1, value.get());
+
+    mgr.setOverrideConfig(config("a.b = 2"));
+    Assert.assertEquals(1, value.get());
+    executor.runAll();
+    Assert.assertEquals(2, value.get());
+  }
+
+  @Test
+  public void asyncListenerCoalesced() {
+    ManualExecutor executor = new ManualExecutor();
+    DynamicConfigManager mgr =
+        DynamicConfigManager.create(config("a = 1"), new NoopRegistry(), executor);
+
+    List<String> updates = new ArrayList<>();
+    mgr.addListener((previous, current) -> updates.add(
+        (previous == null ? "null" : previous.getString("a")) + "->" + current.getString("a")));
+    executor.runAll();
+
+    mgr.setOverrideConfig(config("a = 2"));
+    mgr.setOverrideConfig(config("a = 3"));
+    mgr.setOverrideConfig(config("a = 4"));
+    Assert.assertEquals(1, executor.size());
+    executor.runAll();
+
+    // Intermediate updates are skipped, but previous is the last config the listener saw
+    Assert.assertEquals(Arrays.asList("null->1", "1->4"), updates);
+  }
+
+  @Test
+  public void asyncListenerDoesNotBlockOthers() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      DynamicConfigManager mgr =
+          DynamicConfigManager.create(config("a = 1", "b = 1"), new NoopRegistry(), executor);
+
+      CountDownLatch blocked = new CountDownLatch(1);
+      CountDownLatch updated = new CountDownLatch(1);
+      mgr.addListener(ConfigListener.forInt("a", v -> {
+        if (v == 2) {
+          try {
+            blocked.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }));
+      mgr.addListener(ConfigListener.forInt("b", v -> {
+        if (v == 2) {
+          updated.countDown();
+        }
+      }));
+
+      // Returns immediately even though the listener for a is blocked
+      mgr.setOverrideConfig(config("a = 2", "b = 2"));
+      Assert.assertTrue(updated.await(10, TimeUnit.SECONDS));
+      blocked.countDown();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void asyncListenerRemoved() {
+    ManualExecutor executor = new ManualExecutor();
+    DynamicConfigManager mgr =
+        DynamicConfigManager.create(config("a = 1"), new NoopRegistry(), executor);
+
+    AtomicInteger value = new AtomicInteger();
+    ConfigListener listener = ConfigListener.forInt("a", value::set);
+    mgr.addListener(listener);
+    executor.runAll();
+
+    mgr.setOverrideConfig(config("a = 2"));
+    mgr.removeListener(listener);
+    executor.runAll();
+    Assert.assertEquals(1, value.get());
+  }
+
+  @Test
+  public void asyncProperty() {
+    ManualExecutor executor = new ManualExecutor();
+    DynamicConfigManager mgr =
+        DynamicConfigManager.create(config("a = 1"), new NoopRegistry(), executor);
+
+    // Initial value should be available without waiting for the executor
+    DynamicProperty<Integer> property = mgr.intProperty("a", 42);
+    Assert.assertEquals(1, (int) property.get());
+
+    mgr.setOverrideConfig(config("a = 2"));
+    executor.runAll();
+    Assert.assertEquals(2, (int) property.get());
+  }
+
+  @Test
+  public void listenerTimer() {
+    Registry registry = new DefaultRegistry();
+    DynamicConfigManager mgr = DynamicConfigManager.create(config("a = 1"), registry);
+    mgr.addListener(ConfigListener.forInt("a", v -> {}));
+    mgr.setOverrideConfig(config("a = 2"));
+    Timer timer = registry.timer("iep.config.listenerTime", "id", "a");
+    Assert.assertEquals(2, timer.count());
+  }
+
+  @Test
+  public void listenerId() {
+    ConfigListener lambda = (previous, current) -> {};
+    Assert.assertEquals("a.b", DynamicConfigManagerImpl.listenerId(
+        ConfigListener.forInt("a.b", v -> {})));
+    Assert.assertEquals(
+        DynamicConfigManagerTest.class.getName(),
+        DynamicConfigManagerImpl.listenerId(lambda));
+  }
+
+  @Test
+  public void intProperty() {
+    DynamicConfigManager mgr = newInstance(config("a.b = 1"));
+    DynamicProperty<Integer> property = mgr.intProperty("a.b", 42);
+    Assert.assertEquals(1, (int) property.get());
+    mgr.setOverrideConfig(config("a.b = 2"));
+    Assert.assertEquals(2, (int) property.get());
+  }
+
+  @Test
+  public void propertyDefault() {
+    DynamicConfigManager mgr = newInstance(config("a.b = 1"));
+    DynamicProperty<Integer> property = mgr.intProperty("a.c", 42);
+    Assert.assertEquals(42, (int) property.get());
+    mgr.setOverrideConfig(config("a.c = 2"));
+    Assert.assertEquals(2, (int) property.get());
+    mgr.setOverrideConfig(config("a.d = 2"));
+    Assert.assertEquals(42, (int) property.get());
+  }
+
+  @Test
+  public void propertyClose() {
+    Registry registry = new DefaultRegistry();
+    DynamicConfigManager mgr = DynamicConfigManager.create(config("a = 1"), registry);
+    Timer timer = registry.timer("iep.config.listenerTime", "id", "a");
+    DynamicProperty<Integer> property = mgr.intProperty("a", 42);
+    try (DynamicProperty<Integer> p = property) {
+      mgr.setOverrideConfig(config("a = 2"));
+      Assert.assertEquals(2, (int) p.get());
+    }
+    long count = timer.count();
+
+    // Listener is removed, the value is no longer updated and keeps the last value
+    mgr.setOverrideConfig(config("a = 3"));
+    Assert.assertEquals(2, (int) property.get());
+    Assert.assertEquals(count, timer.count());
+
+    // Closing again has no effect
+    property.close();
+    Assert.assertEquals(2, (int) property.get());
+  }
+
+  @Test
+  public void propertyInvalidValueKeepsPrevious() {
+    DynamicConfigManager mgr = newInstance(config("a = 1"));
+    DynamicProperty<Integer> property = mgr.intProperty("a", 42);
+    mgr.setOverrideConfig(config("a = foo"));
+    Assert.assertEquals(1, (int) property.get());
+  }
+
+  @Test
+  public void booleanProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = false"));
+    DynamicProperty<Boolean> property = mgr.booleanProperty("a", true);
+    Assert.assertFalse(property.get());
+    mgr.setOverrideConfig(config("a = true"));
+    Assert.assertTrue(property.get());
+  }
+
+  @Test
+  public void longProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = 1"));
+    DynamicProperty<Long> property = mgr.longProperty("a", 0L);
+    mgr.setOverrideConfig(config("a = 10000000000"));
+    Assert.assertEquals(10000000000L, (long) property.get());
+  }
+
+  @Test
+  public void doubleProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = 1.5"));
+    DynamicProperty<Double> property = mgr.doubleProperty("a", 0.0);
+    Assert.assertEquals(1.5, property.get(), 1e-12);
+  }
+
+  @Test
+  public void stringProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = foo"));
+    DynamicProperty<String> property = mgr.stringProperty("a", null);
+    Assert.assertEquals("foo", property.get());
+    mgr.setOverrideConfig(config("a = bar"));
+    Assert.assertEquals("bar", property.get());
+  }
+
+  @Test
+  public void durationProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = 1m"));
+    DynamicProperty<Duration> property = mgr.durationProperty("a", Duration.ZERO);
+    Assert.assertEquals(Duration.ofMinutes(1), property.get());
+    mgr.setOverrideConfig(config("a = 5s"));
+    Assert.assertEquals(Duration.ofSeconds(5), property.get());
+  }
+
+  @Test
+  public void bytesProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = 1k"));
+    DynamicProperty<Long> property = mgr.bytesProperty("a", 0L);
+    Assert.assertEquals(1024L, (long) property.get());
+  }
+
+  @Test
+  public void customProperty() {
+    DynamicConfigManager mgr = newInstance(config("a = [1, 2, 3]"));
+    DynamicProperty<List<Integer>> property =
+        mgr.property("a", Collections.emptyList(), Config::getIntList);
+    Assert.assertEquals(3, property.get().size());
+    Assert.assertEquals("a", property.path());
+  }
+
   @Test
   public void configListener() {
     AtomicReference<Config> value = new AtomicReference<>();
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class ListenerIndexTest {
+
+  private Config config(String... props) {
+    String str = String.join("\n", props);
+    return ConfigFactory.parseString(str).resolve();
+  }
+
+  private ConfigListener listener(String path) {
+    return new PathListener(path, (previous, current) -> {});
+  }
+
+  private Set<ConfigListener> set(ConfigListener... listeners) {
+    return new HashSet<>(Arrays.asList(listeners));
+  }
+
+  @Test
+  public void changedPathsNone() {
+    Config c = config("a.b = 1", "c = [1, 2]");
+    Assert.assertEquals(Collections.emptyList(), ListenerIndex.changedPaths(c, c));
+    Assert.assertEquals(
+        Collections.emptyList(),
+        ListenerIndex.changedPaths(c, config("a.b = 1", "c = [1, 2]")));
+  }
+
+  @Test
+  public void changedPathsLeaf() {
+    List<List<String>> paths = ListenerIndex.changedPaths(
+        config("a.b = 1", "a.c = 2"),
+        config("a.b = 1", "a.c = 3"));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList("a", "c")), paths);
+  }
+
+  @Test
+  public void changedPathsAddedAndRemoved() {
+    List<List<String>> paths = ListenerIndex.changedPaths(
+        config("a.b = 1", "c.d = 2"),
+        config("a.b = 1", "e.f = 3"));
+    Assert.assertEquals(
+        Arrays.asList(Collections.singletonList("c"), Collections.singletonList("e")),
+        paths);
+  }
+
+  @Test
+  public void changedPathsTypeChange() {
+    List<List<String>> paths = ListenerIndex.changedPaths(
+        config("a.b = 1"),
+        config("a = 1"));
+    Assert.assertEquals(Collections.singletonList(Collections.singletonList("a")), paths);
+  }
+
+  @Test
+  public void changedPathsQuotedKey() {
+    List<List<String>> paths = ListenerIndex.changedPaths(
+        config("a { \"b.c\" = 1 }"),
+        config("a { \"b.c\" = 2 }"));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList("a", "b.c")), paths);
+  }
+
+  @Test
+  public void affected() {
+    ConfigListener a = listener("a");
+    ConfigListener ab = listener("a.b");
+    ConfigListener ac = listener("a.c");
+    ConfigListener d = listener("d");
+    ConfigListener all = (previous, current) -> {};
+
+    ListenerIndex index = new ListenerIndex();
+    for (ConfigListener listener : set(a, ab, ac, d, all)) {
+      index.add(listener);
+    }
+
+    Config c1 = config("a.b = 1", "a.c = 2", "d = 3");
+    Assert.assertEquals(set(all), index.affected(c1, c1));
+    Assert.assertEquals(
+        set(a, ab, all),
+        index.affected(c1, config("a.b = 2", "a.c = 2", "d = 3")));
+    Assert.assertEquals(
+        set(d, all),
+        index.affected(c1, config("a.b = 1", "a.c = 2", "d = 4")));
+
+    // Change for a prefix of the listener paths
+    Assert.assertEquals(
+        set(a, ab, ac, all),
+        index.affected(c1, config("a = 1", "d = 3")));
+  }
+
+  @Test
+  public void remove() {
+    ConfigListener ab = listener("a.b");
+    ConfigListener all = (previous, current) -> {};
+
+    ListenerIndex index = new ListenerIndex();
+    index.add(ab);
+    index.add(all);
+    index.remove(ab);
+    index.remove(all);
+
+    Config c1 = config("a.b = 1");
+    Assert.assertEquals(Collections.emptySet(), index.affected(c1, config("a.b = 2")));
+  }
+
+  @Test
+  public void invalidPath() {
+    ConfigListener invalid = listener("a..b");
+    ListenerIndex index = new ListenerIndex();
+    index.add(invalid);
+
+    Config c1 = config("c = 1");
+    Assert.assertEquals(set(invalid), index.affected(c1, c1));
+  }
+}
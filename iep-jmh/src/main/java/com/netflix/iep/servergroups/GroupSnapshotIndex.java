@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check the performance of creating a snapshot of the merged groups and of the lookups
+ * used by readers. The snapshot is created on the refresh thread each time the data
+ * changes, so the creation cost is paid once per change while the lookups are on the
+ * request path. The keys for the lookups are selected randomly so the results are not
+ * skewed by a single entry being hot in the cache.
+ *
+ * <pre>
+ * > project/sbt "iep-jmh/Jmh/run -prof gc .*GroupSnapshotIndex.*"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(4)
+public class GroupSnapshotIndex {
+
+  @Param({"10000", "100000", "500000"})
+  public int instances;
+
+  @Param({"false", "true"})
+  public boolean compact;
+
+  private List<ServerGroup> groups;
+  private GroupSnapshot snapshot;
+
+  private String[] apps;
+  private String[] nodes;
+  private String[] addresses;
+
+  @Setup
+  public void setup() {
+    List<ServerGroup> edda = Payloads.groups(instances, Instance.Status.NOT_REGISTERED);
+    List<ServerGroup> eureka = Payloads.groups(instances, Instance.Status.UP);
+    List<ServerGroup> merged = ServerGroup.merge(edda, eureka);
+
+    groups = new ArrayList<>(merged.size());
+    for (ServerGroup group : merged) {
+      groups.add(compact ? group.toCompact() : group);
+    }
+    snapshot = GroupSnapshot.create(groups);
+
+    apps = new String[groups.size()];
+    for (int g = 0; g < apps.length; ++g) {
+      apps[g] = Payloads.app(g);
+    }
+    nodes = new String[instances];
+    addresses = new String[instances];
+    for (int i = 0; i < instances; ++i) {
+      nodes[i] = Payloads.node(i);
+      addresses[i] = Payloads.ip(i);
+    }
+  }
+
+  private static String random(String[] keys) {
+    return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void create(Blackhole bh) {
+    bh.consume(GroupSnapshot.create(groups));
+  }
+
+  @Benchmark
+  public void findByApp(Blackhole bh) {
+    bh.consume(snapshot.findByApp(random(apps)));
+  }
+
+  @Benchmark
+  public void findInstanceByNode(Blackhole bh) {
+    bh.consume(snapshot.findInstance(random(nodes)));
+  }
+
+  @Benchmark
+  public void findInstanceByAddress(Blackhole bh) {
+    bh.consume(snapshot.findInstance(random(addresses)));
+  }
+
+  @Benchmark
+  public void queryAppZone(Blackhole bh) {
+    bh.consume(snapshot.query()
+        .app(random(apps))
+        .zone(Payloads.zone(0))
+        .status(Instance.Status.UP)
+        .instances());
+  }
+
+  @Benchmark
+  public void queryZoneVmtype(Blackhole bh) {
+    bh.consume(snapshot.query()
+        .zone(Payloads.zone(0))
+        .vmtype(Payloads.vmtype(0))
+        .count());
+  }
+}
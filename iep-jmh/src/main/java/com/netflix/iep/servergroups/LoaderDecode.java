@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check the performance of decoding the responses for the Edda and Eureka loaders. A new
+ * loader is created for each invocation so that the response cache will not skip the
+ * decoding.
+ *
+ * <pre>
+ * > project/sbt "iep-jmh/Jmh/run -prof gc .*LoaderDecode.*"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LoaderDecode {
+
+  private static final URI EDDA_URI =
+      URI.create("http://localhost:7101/api/v2/netflix/serverGroups");
+  private static final URI EUREKA_URI = URI.create("http://localhost:7101/v2/apps");
+
+  @Param({"10000", "100000", "500000"})
+  public int instances;
+
+  @Param({"false", "true"})
+  public boolean gzip;
+
+  private StaticHttpClient eddaClient;
+  private StaticHttpClient eurekaClient;
+
+  @Setup
+  public void setup() {
+    eddaClient = new StaticHttpClient(Payloads.edda(instances, gzip), gzip);
+    eurekaClient = new StaticHttpClient(Payloads.eureka(instances, gzip), gzip);
+  }
+
+  @Benchmark
+  public void edda(Blackhole bh) throws Exception {
+    bh.consume(new EddaLoader(eddaClient, EDDA_URI).call());
+  }
+
+  @Benchmark
+  public void eureka(Blackhole bh) throws Exception {
+    bh.consume(new EurekaLoader(eurekaClient, EUREKA_URI, v -> true).call());
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Synthetic data used for the benchmarks. The shape of the payloads is based on the
+ * responses from Edda and Eureka, but only a few of the ignored fields are included to
+ * keep the size manageable for the larger instance counts.
+ */
+final class Payloads {
+
+  private Payloads() {
+  }
+
+  /** Number of instances for each server group. */
+  static final int GROUP_SIZE = 50;
+
+  /** Number of server groups for each app in the Eureka payload. */
+  private static final int GROUPS_PER_APP = 4;
+
+  private static final String[] ZONES = {"us-east-1c", "us-east-1d", "us-east-1e"};
+
+  private static final String[] VM_TYPES = {"m5.large", "m5.xlarge", "r5.2xlarge", "c5.4xlarge"};
+
+  private static final long LAUNCH_TIME = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+
+  static String app(int group) {
+    return "app" + (group / GROUPS_PER_APP);
+  }
+
+  static String group(int group) {
+    return app(group) + "-main-v" + String.format("%03d", group % GROUPS_PER_APP);
+  }
+
+  static String node(int i) {
+    return String.format("i-%017x", i);
+  }
+
+  static String ip(int i) {
+    return "10." + ((i >> 16) & 0xFF) + "." + ((i >> 8) & 0xFF) + "." + (i & 0xFF);
+  }
+
+  static String zone(int i) {
+    return ZONES[i % ZONES.length];
+  }
+
+  static String vmtype(int group) {
+    return VM_TYPES[group % VM_TYPES.length];
+  }
+
+  private static int numGroups(int instances) {
+    return (instances + GROUP_SIZE - 1) / GROUP_SIZE;
+  }
+
+  /** Create a payload matching the format of the Edda {@code /netflix/serverGroups} API. */
+  static byte[] edda(int instances, boolean gzip) {
+    return encode(gzip, out -> {
+      int groups = numGroups(instances);
+      out.write("[");
+      for (int g = 0; g < groups; ++g) {
+        if (g > 0) {
+          out.write(",");
+        }
+        out.write("{\"id\":\"ec2." + group(g) + "\",\"platform\":\"ec2\",\"app\":\"" + app(g)
+            + "\",\"cluster\":\"" + app(g) + "-main\",\"group\":\"" + group(g)
+            + "\",\"minSize\":0,\"maxSize\":" + (2 * GROUP_SIZE)
+            + ",\"desiredSize\":" + GROUP_SIZE + ",\"instances\":[");
+        int end = Math.min(instances, (g + 1) * GROUP_SIZE);
+        for (int i = g * GROUP_SIZE; i < end; ++i) {
+          if (i > g * GROUP_SIZE) {
+            out.write(",");
+          }
+          out.write("{\"launchTime\":" + LAUNCH_TIME
+              + ",\"node\":\"" + node(i)
+              + "\",\"privateIpAddress\":\"" + ip(i)
+              + "\",\"vpcId\":\"vpc-12345\",\"subnetId\":\"subnet-" + (i % ZONES.length)
+              + "\",\"ami\":\"ami-0987654321\",\"vmtype\":\"" + vmtype(g)
+              + "\",\"zone\":\"" + zone(i) + "\"}");
+        }
+        out.write("]}");
+      }
+      out.write("]");
+    });
+  }
+
+  /** Create a payload matching the format of the Eureka {@code /v2/apps} API. */
+  static byte[] eureka(int instances, boolean gzip) {
+    return encode(gzip, out -> {
+      int groups = numGroups(instances);
+      out.write("{\"applications\":{\"versions__delta\":\"1\",\"application\":[");
+      for (int g = 0; g < groups; ++g) {
+        boolean firstInApp = g % GROUPS_PER_APP == 0;
+        if (firstInApp) {
+          if (g > 0) {
+            out.write("]},");
+          }
+          out.write("{\"name\":\"" + app(g).toUpperCase() + "\",\"instance\":[");
+        } else {
+          out.write(",");
+        }
+        int end = Math.min(instances, (g + 1) * GROUP_SIZE);
+        for (int i = g * GROUP_SIZE; i < end; ++i) {
+          if (i > g * GROUP_SIZE) {
+            out.write(",");
+          }
+          String ip = ip(i);
+          out.write("{\"instanceId\":\"" + node(i)
+              + "\",\"app\":\"" + app(g).toUpperCase()
+              + "\",\"ipAddr\":\"" + ip
+              + "\",\"homePageUrl\":\"http://" + ip + ":7101/"
+              + "\",\"healthCheckUrl\":\"http://" + ip + ":7101/healthcheck"
+              + "\",\"vipAddress\":\"" + app(g) + "-main:7001"
+              + "\",\"dataCenterInfo\":{\"@class\":\"com.netflix.appinfo.AmazonInfo\""
+              + ",\"name\":\"Amazon\",\"metadata\":{"
+              + "\"instance-id\":\"" + node(i)
+              + "\",\"availability-zone\":\"" + zone(i)
+              + "\",\"instance-type\":\"" + vmtype(g)
+              + "\",\"ami-id\":\"ami-0987654321\",\"accountId\":\"12345\""
+              + ",\"vpc-id\":\"vpc-12345\",\"local-ipv4\":\"" + ip + "\"}}"
+              + ",\"status\":\"UP\",\"overriddenStatus\":\"UNKNOWN\""
+              + ",\"leaseInfo\":{\"renewalIntervalInSecs\":30,\"durationInSecs\":90"
+              + ",\"registrationTimestamp\":" + LAUNCH_TIME + "}"
+              + ",\"actionType\":\"ADDED\",\"asgName\":\"" + group(g)
+              + "\",\"port\":{\"$\":7101,\"@enabled\":\"true\"}}");
+        }
+      }
+      if (groups > 0) {
+        out.write("]}");
+      }
+      out.write("]}}");
+    });
+  }
+
+  /** Create the server groups equivalent to the payloads with the given instance status. */
+  static List<ServerGroup> groups(int instances, Instance.Status status) {
+    int groups = numGroups(instances);
+    List<ServerGroup> vs = new ArrayList<>(groups);
+    for (int g = 0; g < groups; ++g) {
+      ServerGroup.Builder builder = ServerGroup.builder()
+          .platform("ec2")
+          .group(group(g))
+          .minSize(0)
+          .maxSize(2 * GROUP_SIZE)
+          .desiredSize(GROUP_SIZE);
+      int end = Math.min(instances, (g + 1) * GROUP_SIZE);
+      for (int i = g * GROUP_SIZE; i < end; ++i) {
+        builder.addInstance(Instance.builder()
+            .node(node(i))
+            .privateIpAddress(ip(i))
+            .vpcId("vpc-12345")
+            .ami("ami-0987654321")
+            .vmtype(vmtype(g))
+            .zone(zone(i))
+            .status(status)
+            .build());
+      }
+      vs.add(builder.build());
+    }
+    return vs;
+  }
+
+  private static byte[] encode(boolean gzip, WriterConsumer f) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (Writer out = new OutputStreamWriter(
+          gzip ? new GZIPOutputStream(baos, 64 * 1024) : baos, StandardCharsets.UTF_8)) {
+        f.accept(out);
+      }
+      return baos.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private interface WriterConsumer {
+    void accept(Writer out) throws IOException;
+  }
+}
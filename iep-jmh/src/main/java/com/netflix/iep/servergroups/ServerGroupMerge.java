@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check the performance of merging the server groups from two sources. The first source
+ * is similar to Edda with the instances having a status of not registered and the second
+ * is similar to Eureka with the instances being up.
+ *
+ * <pre>
+ * > project/sbt "iep-jmh/Jmh/run -prof gc .*ServerGroupMerge.*"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ServerGroupMerge {
+
+  @Param({"10000", "100000", "500000"})
+  public int instances;
+
+  private List<ServerGroup> edda;
+  private List<ServerGroup> eureka;
+
+  private ServerGroup largeEdda;
+  private ServerGroup largeEureka;
+
+  @Setup
+  public void setup() {
+    edda = Payloads.groups(instances, Instance.Status.NOT_REGISTERED);
+    eureka = Payloads.groups(instances, Instance.Status.UP);
+
+    // Single group with all instances to check the cost of merging a large group
+    largeEdda = single(edda);
+    largeEureka = single(eureka);
+  }
+
+  private static ServerGroup single(List<ServerGroup> groups) {
+    ServerGroup.Builder builder = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v001");
+    for (ServerGroup group : groups) {
+      builder.addInstances(group.getInstances());
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public void mergeGroup(Blackhole bh) {
+    bh.consume(largeEdda.merge(largeEureka));
+  }
+
+  @Benchmark
+  public void mergeAll(Blackhole bh) {
+    bh.consume(ServerGroup.merge(edda, eureka));
+  }
+}
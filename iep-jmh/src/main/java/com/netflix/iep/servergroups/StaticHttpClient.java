@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.ipc.IpcLogger;
+import com.netflix.spectator.ipc.http.HttpClient;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
+import com.netflix.spectator.ipc.http.HttpResponse;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP client that always responds with the same payload. Used so the benchmarks measure
+ * the decoding rather than the network.
+ */
+final class StaticHttpClient implements HttpClient {
+
+  private final IpcLogger logger = new IpcLogger(new NoopRegistry());
+
+  private final byte[] data;
+  private final Map<String, List<String>> headers;
+
+  StaticHttpClient(byte[] data, boolean gzip) {
+    this.data = data;
+    this.headers = gzip
+        ? Collections.singletonMap("Content-Encoding", Collections.singletonList("gzip"))
+        : Collections.emptyMap();
+  }
+
+  @Override public HttpRequestBuilder newRequest(URI uri) {
+    return new HttpRequestBuilder(logger, uri) {
+      @Override protected HttpResponse sendImpl() {
+        return new HttpResponse(200, headers, data);
+      }
+    };
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups.aws2;
+
+import com.netflix.iep.aws2.AwsClientFactory;
+import com.netflix.iep.servergroups.Instance;
+import com.netflix.iep.servergroups.Loader;
+import com.netflix.iep.servergroups.ServerGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.autoscaling.AutoScalingAsyncClient;
+import software.amazon.awssdk.services.autoscaling.model.AutoScalingGroup;
+import software.amazon.awssdk.services.autoscaling.model.DescribeAutoScalingGroupsRequest;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Load server groups directly from the AWS APIs. The auto scaling groups are used for the
+ * group membership and sizes, and the EC2 instances are used for the instance details such
+ * as the IP address. Both sets of pages are fetched concurrently using the async clients.
+ * Since it is based on the AWS APIs, only EC2 server groups are included. The instances
+ * will have a status of {@link Instance.Status#NOT_REGISTERED}, the loader can be used
+ * along with a {@link com.netflix.iep.servergroups.EurekaLoader} to get the health.
+ */
+public class Ec2Loader implements Loader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Ec2Loader.class);
+
+  private static final String GROUP_TAG = "aws:autoscaling:groupName";
+
+  private final Ec2AsyncClient ec2;
+  private final AutoScalingAsyncClient autoScaling;
+
+  /**
+   * Create a new instance using the shared clients from the factory. The clients will use
+   * the {@code ec2} and {@code autoscaling} config blocks.
+   *
+   * @param factory
+   *     Factory used to get the async clients.
+   */
+  public Ec2Loader(AwsClientFactory factory) {
+    this(factory, null);
+  }
+
+  /**
+   * Create a new instance using the shared clients from the factory. The clients will use
+   * the {@code ec2} and {@code autoscaling} config blocks.
+   *
+   * @param factory
+   *     Factory used to get the async clients.
+   * @param accountId
+   *     Account to load the server groups for. See
+   *     {@link AwsClientFactory#getInstance(Class, String)} for more details.
+   */
+  public Ec2Loader(AwsClientFactory factory, String accountId) {
+    this(
+        factory.getInstance(Ec2AsyncClient.class, accountId),
+        factory.getInstance(AutoScalingAsyncClient.class, accountId));
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param ec2
+   *     Client used to describe the instances.
+   * @param autoScaling
+   *     Client used to describe the auto scaling groups.
+   */
+  public Ec2Loader(Ec2AsyncClient ec2, AutoScalingAsyncClient autoScaling) {
+    this.ec2 = ec2;
+    this.autoScaling = autoScaling;
+  }
+
+  /**
+   * Request for instances that are part of an auto scaling group. Terminated and stopped
+   * instances are filtered out on the server side to reduce the size of the pages.
+   */
+  private DescribeInstancesRequest instancesRequest() {
+    return DescribeInstancesRequest.builder()
+        .filters(
+            Filter.builder().name("tag-key").values(GROUP_TAG).build(),
+            Filter.builder().name("instance-state-name").values("pending", "running").build())
+        .maxResults(1000)
+        .build();
+  }
+
+  private DescribeAutoScalingGroupsRequest groupsRequest() {
+    return DescribeAutoScalingGroupsRequest.builder()
+        .maxRecords(100)
+        .build();
+  }
+
+  /** Map the EC2 instance to the instance model. */
+  static Instance toInstance(software.amazon.awssdk.services.ec2.model.Instance instance) {
+    return Instance.builder()
+        .node(instance.instanceId())
+        .privateIpAddress(instance.privateIpAddress())
+        .ipv6Address(instance.ipv6Address())
+        .vpcId(instance.vpcId())
+        .subnetId(instance.subnetId())
+        .ami(instance.imageId())
+        .vmtype(instance.instanceTypeAsString())
+        .zone(instance.placement() == null ? null : instance.placement().availabilityZone())
+        .launchTime(instance.launchTime())
+        .status(Instance.Status.NOT_REGISTERED)
+        .build();
+  }
+
+  private static void addInstances(
+      Map<String, Instance> instances, DescribeInstancesResponse page) {
+    for (Reservation reservation : page.reservations()) {
+      for (software.amazon.awssdk.services.ec2.model.Instance instance : reservation.instances()) {
+        try {
+          instances.put(instance.instanceId(), toInstance(instance));
+        } catch (IllegalArgumentException | NullPointerException e) {
+          // Log but otherwise ignore failures like missing IP address
+          LOGGER.warn("failed to process instance {} from EC2 response", instance.instanceId(), e);
+        }
+      }
+    }
+  }
+
+  /** Create the server group using the instance details for the members. */
+  static ServerGroup toServerGroup(AutoScalingGroup asg, Map<String, Instance> instances) {
+    ServerGroup.Builder builder = ServerGroup.builder()
+        .platform("ec2")
+        .group(asg.autoScalingGroupName())
+        .minSize(asg.minSize())
+        .maxSize(asg.maxSize())
+        .desiredSize(asg.desiredCapacity());
+    for (software.amazon.awssdk.services.autoscaling.model.Instance member : asg.instances()) {
+      // Instances that are not running or were launched after the instance pages were
+      // fetched will not be present. They will get picked up on a subsequent refresh.
+      Instance instance = instances.get(member.instanceId());
+      if (instance != null) {
+        builder.addInstance(instance);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Return the exception for the request that failed first. The other request will have
+   * been cancelled, and the combined future could report the cancellation instead.
+   */
+  private static Exception failure(ExecutionException e, CompletableFuture<?>... futures) {
+    for (CompletableFuture<?> future : futures) {
+      try {
+        future.getNow(null);
+      } catch (CancellationException ce) {
+        // Cancelled because the other request failed
+      } catch (CompletionException ce) {
+        Throwable cause = ce.getCause();
+        if (cause instanceof Exception) {
+          return (Exception) cause;
+        }
+      }
+    }
+    Throwable cause = e.getCause();
+    return (cause instanceof Exception) ? (Exception) cause : e;
+  }
+
+  @Override public List<ServerGroup> call() throws Exception {
+    // The page callbacks for a given publisher are invoked serially, so the collections
+    // do not need to be thread safe. Waiting on the futures below makes the results
+    // visible to this thread.
+    Map<String, Instance> instances = new HashMap<>();
+    List<AutoScalingGroup> asgs = new ArrayList<>();
+
+    CompletableFuture<Void> instancesFuture = ec2
+        .describeInstancesPaginator(instancesRequest())
+        .subscribe(page -> addInstances(instances, page));
+    CompletableFuture<Void> asgsFuture = autoScaling
+        .describeAutoScalingGroupsPaginator(groupsRequest())
+        .subscribe(page -> asgs.addAll(page.autoScalingGroups()));
+
+    // If one of the requests fails, then stop the other one rather than waiting for it to
+    // go through the remaining pages
+    instancesFuture.whenComplete((v, t) -> {
+      if (t != null) {
+        asgsFuture.cancel(true);
+      }
+    });
+    asgsFuture.whenComplete((v, t) -> {
+      if (t != null) {
+        instancesFuture.cancel(true);
+      }
+    });
+
+    boolean completed = false;
+    try {
+      CompletableFuture.allOf(instancesFuture, asgsFuture).get();
+      completed = true;
+    } catch (ExecutionException e) {
+      throw failure(e, instancesFuture, asgsFuture);
+    } finally {
+      if (!completed) {
+        // Also covers the thread being interrupted, e.g. if the loader timed out, so the
+        // paginators do not keep running in the background
+        instancesFuture.cancel(true);
+        asgsFuture.cancel(true);
+      }
+    }
+
+    List<ServerGroup> groups = new ArrayList<>(asgs.size());
+    for (AutoScalingGroup asg : asgs) {
+      groups.add(toServerGroup(asg, instances));
+    }
+    return groups;
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups.aws2;
+
+import com.netflix.iep.aws2.AwsClientFactory;
+import com.netflix.iep.servergroups.Instance;
+import com.netflix.iep.servergroups.ServerGroup;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import software.amazon.awssdk.services.autoscaling.model.AutoScalingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(JUnit4.class)
+public class Ec2LoaderTest {
+
+  private static final String ASG_ERROR = "<ErrorResponse>"
+      + "<Error><Type>Sender</Type><Code>ValidationError</Code><Message>test</Message></Error>"
+      + "<RequestId>0f02a07d-b677-11e2-9eb0-example</RequestId>"
+      + "</ErrorResponse>";
+
+  @BeforeClass
+  public static void setupCredentials() {
+    // Picked up by the default credentials provider used by the factory
+    System.setProperty("aws.accessKeyId", "test");
+    System.setProperty("aws.secretAccessKey", "test");
+  }
+
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private volatile boolean failAutoScaling;
+
+  // If set, then DescribeInstances requests will be held until the latch is released
+  private volatile CountDownLatch blockInstances;
+
+  private ExecutorService executor;
+  private HttpServer server;
+  private AwsClientFactory factory;
+
+  @Before
+  public void before() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 10);
+    server.createContext("/", this::handle);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+
+    String endpoint = "http://localhost:" + server.getAddress().getPort();
+    Config config = ConfigFactory.parseString(""
+        + "netflix.iep.aws.default.client.endpoint-override = \"" + endpoint + "\"\n"
+        + "netflix.iep.aws.ec2.dualstack = false\n")
+        .withFallback(ConfigFactory.load())
+        .resolve();
+    factory = new AwsClientFactory(config);
+  }
+
+  @After
+  public void after() throws Exception {
+    if (blockInstances != null) {
+      blockInstances.countDown();
+    }
+    factory.close();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private static Map<String, String> parseForm(InputStream in) throws IOException {
+    Map<String, String> params = new HashMap<>();
+    String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    for (String param : body.split("&")) {
+      int pos = param.indexOf('=');
+      if (pos > 0) {
+        params.put(
+            URLDecoder.decode(param.substring(0, pos), StandardCharsets.UTF_8),
+            URLDecoder.decode(param.substring(pos + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return params;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Map<String, String> params = parseForm(exchange.getRequestBody());
+    String action = params.get("Action");
+    String token = params.get("NextToken");
+    requests.add(action + ":" + token);
+
+    CountDownLatch latch = blockInstances;
+    if ("DescribeInstances".equals(action) && latch != null) {
+      try {
+        latch.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    int status = 200;
+    byte[] payload;
+    if ("DescribeInstances".equals(action)) {
+      payload = resource(token == null ? "ec2-instances-1.xml" : "ec2-instances-2.xml");
+    } else if ("DescribeAutoScalingGroups".equals(action) && failAutoScaling) {
+      status = 400;
+      payload = ASG_ERROR.getBytes(StandardCharsets.UTF_8);
+    } else if ("DescribeAutoScalingGroups".equals(action)) {
+      payload = resource(token == null ? "autoscaling-groups-1.xml" : "autoscaling-groups-2.xml");
+    } else {
+      status = 404;
+      payload = new byte[0];
+    }
+
+    exchange.getResponseHeaders().add("Content-Type", "text/xml");
+    exchange.sendResponseHeaders(status, payload.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(payload);
+    }
+  }
+
+  private static byte[] resource(String name) throws IOException {
+    try (InputStream in = Ec2LoaderTest.class.getClassLoader().getResourceAsStream(name)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static Instance instance(String node, String ip, String zone) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress(ip)
+        .vpcId("vpc-12345")
+        .subnetId("subnet-12345")
+        .ami("ami-12345")
+        .vmtype("m5.large")
+        .zone(zone)
+        .launchTime(Instant.parse("2026-01-01T00:00:00Z"))
+        .status(Instance.Status.NOT_REGISTERED)
+        .build();
+  }
+
+  @Test
+  public void load() throws Exception {
+    List<ServerGroup> expected = new ArrayList<>();
+    expected.add(ServerGroup.builder()
+        .platform("ec2")
+        .group("app-canary-v002")
+        .minSize(0)
+        .maxSize(2)
+        .desiredSize(2)
+        .addInstance(instance("i-002", "10.0.0.2", "us-east-1d"))
+        .build());
+    expected.add(ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v000")
+        .minSize(0)
+        .maxSize(0)
+        .desiredSize(0)
+        .build());
+    expected.add(ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v001")
+        .minSize(1)
+        .maxSize(5)
+        .desiredSize(3)
+        .addInstance(instance("i-001", "10.0.0.1", "us-east-1c"))
+        .addInstance(instance("i-003", "10.0.0.3", "us-east-1e"))
+        .build());
+
+    List<ServerGroup> actual = new Ec2Loader(factory).call();
+    actual.sort(Comparator.comparing(ServerGroup::getId));
+    Assert.assertEquals(expected, actual);
+
+    // Both APIs should have been paginated
+    Assert.assertTrue(requests.contains("DescribeInstances:null"));
+    Assert.assertTrue(requests.contains("DescribeInstances:ec2-page-2"));
+    Assert.assertTrue(requests.contains("DescribeAutoScalingGroups:null"));
+    Assert.assertTrue(requests.contains("DescribeAutoScalingGroups:asg-page-2"));
+    Assert.assertEquals(4, requests.size());
+  }
+
+  @Test(expected = AutoScalingException.class)
+  public void loadFailure() throws Exception {
+    failAutoScaling = true;
+    new Ec2Loader(factory).call();
+  }
+
+  @Test
+  public void loadFailureFast() throws Exception {
+    // The failure for the groups should be reported without waiting for the instances
+    failAutoScaling = true;
+    blockInstances = new CountDownLatch(1);
+    long start = System.nanoTime();
+    try {
+      new Ec2Loader(factory).call();
+      Assert.fail("expected AutoScalingException");
+    } catch (AutoScalingException e) {
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      Assert.assertTrue("took " + elapsed + "ms", elapsed < 20_000);
+    }
+  }
+
+  @Test
+  public void loadInterrupted() throws Exception {
+    blockInstances = new CountDownLatch(1);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread t = new Thread(() -> {
+      try {
+        new Ec2Loader(factory).call();
+      } catch (Throwable e) {
+        error.set(e);
+      }
+    });
+    t.start();
+
+    // Wait for the instances request to be held by the server, then interrupt
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!requests.contains("DescribeInstances:null")
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    t.interrupt();
+    t.join(10_000);
+    Assert.assertFalse(t.isAlive());
+    Assert.assertTrue(error.get() instanceof InterruptedException);
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of instances stored as a struct of arrays. The attributes with a low
+ * cardinality, such as the zone or vmtype, are dictionary encoded, the launch time is
+ * stored as a primitive and the status as a byte. This avoids about a dozen objects per
+ * instance for processes that keep the full set of groups in memory. The {@link Instance}
+ * objects are created when accessed.
+ */
+final class CompactInstanceList extends AbstractList<Instance> implements RandomAccess {
+
+  private static final Instance.Status[] STATUSES = Instance.Status.values();
+
+  // Code used for null values of dictionary encoded attributes
+  private static final char NULL_CODE = Character.MAX_VALUE;
+
+  // Value used for a null launch time
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  /**
+   * Create a compact list with the same contents as the input list. If the values cannot be
+   * represented, e.g. there are too many distinct values to encode or launch times with
+   * sub-millisecond precision, then the input list will be returned.
+   */
+  static List<Instance> create(List<Instance> instances) {
+    if (instances instanceof CompactInstanceList) {
+      return instances;
+    }
+
+    int n = instances.size();
+    String[] nodes = new String[n];
+    String[] privateIps = new String[n];
+    String[] ipv6s = new String[n];
+    char[] vpcIds = new char[n];
+    char[] subnetIds = new char[n];
+    char[] amis = new char[n];
+    char[] vmtypes = new char[n];
+    char[] zones = new char[n];
+    long[] launchTimes = new long[n];
+    byte[] statuses = new byte[n];
+
+    Map<String, Character> codes = new HashMap<>();
+    List<String> dictionary = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      Instance instance = instances.get(i);
+      nodes[i] = instance.getNode();
+      privateIps[i] = instance.getPrivateIpAddress();
+      ipv6s[i] = instance.getIpv6Address();
+      // Each instance can add up to five values to the dictionary
+      if (dictionary.size() > NULL_CODE - 5) {
+        return instances;
+      }
+      vpcIds[i] = encode(codes, dictionary, instance.getVpcId());
+      subnetIds[i] = encode(codes, dictionary, instance.getSubnetId());
+      amis[i] = encode(codes, dictionary, instance.getAmi());
+      vmtypes[i] = encode(codes, dictionary, instance.getVmtype());
+      zones[i] = encode(codes, dictionary, instance.getZone());
+
+      Instant t = instance.getLaunchTime();
+      if (t == null) {
+        launchTimes[i] = NULL_TIME;
+      } else {
+        long millis = t.toEpochMilli();
+        if (millis == NULL_TIME || !t.equals(Instant.ofEpochMilli(millis))) {
+          return instances;
+        }
+        launchTimes[i] = millis;
+      }
+
+      statuses[i] = (byte) instance.getStatus().ordinal();
+    }
+
+    return new CompactInstanceList(
+        nodes, privateIps, ipv6s,
+        dictionary.toArray(new String[0]),
+        vpcIds, subnetIds, amis, vmtypes, zones,
+        launchTimes, statuses);
+  }
+
+  private static char encode(Map<String, Character> codes, List<String> dictionary, String v) {
+    if (v == null) {
+      return NULL_CODE;
+    }
+    Character code = codes.get(v);
+    if (code == null) {
+      code = (char) dictionary.size();
+      codes.put(v, code);
+      dictionary.add(v);
+    }
+    return code;
+  }
+
+  private final String[] nodes;
+  private final String[] privateIps;
+  private final String[] ipv6s;
+
+  private final String[] dictionary;
+  private final char[] vpcIds;
+  private final char[] subnetIds;
+  private final char[] amis;
+  private final char[] vmtypes;
+  private final char[] zones;
+
+  private final long[] launchTimes;
+  private final byte[] statuses;
+
+  private CompactInstanceList(
+      String[] nodes,
+      String[] privateIps,
+      String[] ipv6s,
+      String[] dictionary,
+      char[] vpcIds,
+      char[] subnetIds,
+      char[] amis,
+      char[] vmtypes,
+      char[] zones,
+      long[] launchTimes,
+      byte[] statuses) {
+    this.nodes = nodes;
+    this.privateIps = privateIps;
+    this.ipv6s = ipv6s;
+    this.dictionary = dictionary;
+    this.vpcIds = vpcIds;
+    this.subnetIds = subnetIds;
+    this.amis = amis;
+    this.vmtypes = vmtypes;
+    this.zones = zones;
+    this.launchTimes = launchTimes;
+    this.statuses = statuses;
+  }
+
+  private String decode(char code) {
+    return code == NULL_CODE ? null : dictionary[code];
+  }
+
+  /** Return the node id for the instance at the given position. */
+  String node(int i) {
+    return nodes[i];
+  }
+
+  /** Return the private IPv4 address for the instance at the given position. */
+  String privateIpAddress(int i) {
+    return privateIps[i];
+  }
+
+  /** Return the IPv6 address for the instance at the given position. */
+  String ipv6Address(int i) {
+    return ipv6s[i];
+  }
+
+  /** Return the vmtype for the instance at the given position. */
+  String vmtype(int i) {
+    return decode(vmtypes[i]);
+  }
+
+  /** Return the zone for the instance at the given position. */
+  String zone(int i) {
+    return decode(zones[i]);
+  }
+
+  /** Return the status for the instance at the given position. */
+  Instance.Status status(int i) {
+    return STATUSES[statuses[i]];
+  }
+
+  /**
+   * Return the position of the instance with a given node id or IP address, or -1 if there
+   * is no such instance. This does not need to create the {@link Instance} objects.
+   */
+  int indexOf(String nodeOrAddress) {
+    for (int i = 0; i < nodes.length; ++i) {
+      if (nodeOrAddress.equals(nodes[i])
+          || nodeOrAddress.equals(privateIps[i])
+          || nodeOrAddress.equals(ipv6s[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override public Instance get(int i) {
+    long t = launchTimes[i];
+    return Instance.builder()
+        .node(nodes[i])
+        .privateIpAddress(privateIps[i])
+        .ipv6Address(ipv6s[i])
+        .vpcId(decode(vpcIds[i]))
+        .subnetId(decode(subnetIds[i]))
+        .ami(decode(amis[i]))
+        .vmtype(decode(vmtypes[i]))
+        .zone(decode(zones[i]))
+        .launchTime(t == NULL_TIME ? null : Instant.ofEpochMilli(t))
+        .status(STATUSES[statuses[i]])
+        .build();
+  }
+
+  @Override public int size() {
+    return nodes.length;
+  }
+}
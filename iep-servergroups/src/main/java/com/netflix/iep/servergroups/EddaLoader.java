@@ -17,7 +17,10 @@ package com.netflix.iep.servergroups;
 
 import tools.jackson.core.JsonParser;
 import tools.jackson.core.JsonToken;
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.ipc.http.HttpClient;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
 import com.netflix.spectator.ipc.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +43,8 @@ public class EddaLoader implements Loader {
 
   private final HttpClient client;
   private final URI uri;
+  private final LoaderMetrics metrics;
+  private final ResponseCache cache;
 
   /**
    * Create a new instance.
@@ -50,121 +55,179 @@ public class EddaLoader implements Loader {
    *     Full URI to the {@code /netflix/serverGroups} endpoint on the Edda server.
    */
   public EddaLoader(HttpClient client, URI uri) {
+    this(client, uri, new NoopRegistry());
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param client
+   *     HTTP client used to request data from Edda.
+   * @param uri
+   *     Full URI to the {@code /netflix/serverGroups} endpoint on the Edda server.
+   * @param registry
+   *     Registry for recording the time to fetch and decode the data along with the
+   *     payload size and decode warnings. The metrics will have an id of {@code edda}.
+   */
+  public EddaLoader(HttpClient client, URI uri, Registry registry) {
+    this(client, uri, registry, "edda");
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param client
+   *     HTTP client used to request data from Edda.
+   * @param uri
+   *     Full URI to the {@code /netflix/serverGroups} endpoint on the Edda server.
+   * @param registry
+   *     Registry for recording the time to fetch and decode the data along with the
+   *     payload size and decode warnings.
+   * @param id
+   *     Id to use for the metrics. It should be unique for each loader and match the name
+   *     used when registering the loader with {@link GroupService}.
+   */
+  public EddaLoader(HttpClient client, URI uri, Registry registry, String id) {
     this.client = client;
     this.uri = uri;
+    this.metrics = new LoaderMetrics(registry, id);
+    this.cache = new ResponseCache(metrics);
   }
 
-  private Instance decodeInstance(JsonParser jp) throws IOException {
-    Instance.Builder builder = Instance.builder().status(Instance.Status.NOT_REGISTERED);
-    JsonUtils.forEachField(jp, (field, p) -> {
-      switch (field) {
-        case "node":
-          builder.node(JsonUtils.stringValue(jp));
-          break;
-        case "privateIpAddress":
-          builder.privateIpAddress(JsonUtils.stringValue(jp));
-          break;
-        case "ipv6Address":
-          builder.ipv6Address(JsonUtils.stringValue(jp));
-          break;
-        case "vpcId":
-          builder.vpcId(JsonUtils.stringValue(jp));
-          break;
-        case "subnetId":
-          builder.subnetId(JsonUtils.stringValue(jp));
-          break;
-        case "ami":
-          builder.ami(JsonUtils.stringValue(jp));
-          break;
-        case "vmtype":
-          builder.vmtype(JsonUtils.stringValue(jp));
-          break;
-        case "zone":
-          builder.zone(JsonUtils.stringValue(jp));
-          break;
-        case "launchTime":
-          // Only set when a real value is present. A JSON null must still be consumed here;
-          // routing it through longValue would fail the VALUE_NUMBER_INT check and abort the
-          // parse mid-object, stranding the parser and wedging the enclosing decode loops.
-          if (jp.currentToken() == JsonToken.VALUE_NULL) {
-            jp.nextToken();
-          } else {
-            builder.launchTime(Instant.ofEpochMilli(JsonUtils.longValue(jp)));
-          }
-          break;
-        default:
-          // Ignore unknown fields
-          JsonUtils.skipValue(jp);
-          break;
-      }
-    });
-    return builder.build();
+  private static void decodeInstanceField(
+      DecodeState state, String field, JsonParser jp) throws IOException {
+    Instance.Builder builder = state.instance;
+    switch (field) {
+      case "node":
+        builder.node(JsonUtils.stringValue(jp));
+        break;
+      case "privateIpAddress":
+        builder.privateIpAddress(JsonUtils.stringValue(jp));
+        break;
+      case "ipv6Address":
+        builder.ipv6Address(JsonUtils.stringValue(jp));
+        break;
+      case "vpcId":
+        builder.vpcId(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "subnetId":
+        builder.subnetId(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "ami":
+        builder.ami(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "vmtype":
+        builder.vmtype(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "zone":
+        builder.zone(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "launchTime":
+        // Only set when a real value is present. A JSON null must still be consumed here;
+        // routing it through longValue would fail the VALUE_NUMBER_INT check and abort the
+        // parse mid-object, stranding the parser and wedging the enclosing decode loops.
+        if (jp.currentToken() == JsonToken.VALUE_NULL) {
+          jp.nextToken();
+        } else {
+          builder.launchTime(Instant.ofEpochMilli(JsonUtils.longValue(jp)));
+        }
+        break;
+      default:
+        // Ignore unknown fields
+        JsonUtils.skipValue(jp);
+        break;
+    }
   }
 
-  private List<Instance> decodeInstances(JsonParser jp) throws IOException {
-    if (jp.currentToken() == JsonToken.VALUE_NULL) {
-      return Collections.emptyList();
+  private static void decodeInstance(DecodeState state, JsonParser jp) throws IOException {
+    state.instance = Instance.builder().status(Instance.Status.NOT_REGISTERED);
+    try {
+      JsonUtils.forEachField(jp, state, EddaLoader::decodeInstanceField);
+      state.group.addInstance(state.instance.build());
+    } catch (IllegalArgumentException | NullPointerException e) {
+      // Log but otherwise ignore failures like missing IP address
+      LOGGER.warn("failed to process instance in Edda response", e);
+      state.metrics.decodeWarning("invalidInstance");
     }
-    List<Instance> vs = new ArrayList<>();
-    JsonUtils.forEach(jp, p -> {
-      try {
-        vs.add(decodeInstance(jp));
-      } catch (IllegalArgumentException | NullPointerException e) {
-        // Log but otherwise ignore failures like missing IP address
-        LOGGER.warn("failed to process instance in Edda response", e);
-      }
-    });
-    return vs;
   }
 
-  private ServerGroup decodeServerGroup(JsonParser jp) throws IOException {
-    ServerGroup.Builder builder = ServerGroup.builder();
-    JsonUtils.forEachField(jp, (field, p) -> {
-      switch (field) {
-        case "platform":
-          builder.platform(JsonUtils.stringValue(jp));
-          break;
-        case "group":
-          builder.group(JsonUtils.stringValue(jp));
-          break;
-        case "minSize":
-          builder.minSize(JsonUtils.intValue(jp));
-          break;
-        case "maxSize":
-          builder.maxSize(JsonUtils.intValue(jp));
-          break;
-        case "desiredSize":
-          builder.desiredSize(JsonUtils.intValue(jp));
-          break;
-        case "instances":
-          builder.addInstances(decodeInstances(jp));
-          break;
-        default:
-          // Ignore unknown fields
-          JsonUtils.skipValue(jp);
-          break;
-      }
-    });
-    return builder.build();
+  private static void decodeServerGroupField(
+      DecodeState state, String field, JsonParser jp) throws IOException {
+    ServerGroup.Builder builder = state.group;
+    switch (field) {
+      case "platform":
+        builder.platform(JsonUtils.stringValue(jp, state.pool));
+        break;
+      case "group":
+        builder.group(JsonUtils.stringValue(jp));
+        break;
+      case "minSize":
+        builder.minSize(JsonUtils.intValue(jp));
+        break;
+      case "maxSize":
+        builder.maxSize(JsonUtils.intValue(jp));
+        break;
+      case "desiredSize":
+        builder.desiredSize(JsonUtils.intValue(jp));
+        break;
+      case "instances":
+        if (jp.currentToken() == JsonToken.VALUE_NULL) {
+          jp.nextToken();
+        } else {
+          JsonUtils.forEach(jp, state, EddaLoader::decodeInstance);
+        }
+        break;
+      default:
+        // Ignore unknown fields
+        JsonUtils.skipValue(jp);
+        break;
+    }
+  }
+
+  private static void decodeServerGroup(DecodeState state, JsonParser jp) throws IOException {
+    state.group = ServerGroup.builder();
+    JsonUtils.forEachField(jp, state, EddaLoader::decodeServerGroupField);
+    state.groups.add(state.group.build());
   }
 
   private List<ServerGroup> decodeServerGroups(JsonParser jp) throws IOException {
+    DecodeState state = new DecodeState(metrics);
     jp.nextToken();
-    return JsonUtils.toList(jp, this::decodeServerGroup);
+    if (jp.currentToken() == JsonToken.VALUE_NULL) {
+      return Collections.emptyList();
+    }
+    JsonUtils.forEach(jp, state, EddaLoader::decodeServerGroup);
+    return state.groups;
   }
 
   @Override public List<ServerGroup> call() throws Exception {
 
-    HttpResponse response = client.get(uri)
+    HttpRequestBuilder builder = client.get(uri)
         .customizeLogging(entry -> entry.withEndpoint("/api/v2/netflix/serverGroups"))
         .acceptGzip()
-        .acceptJson()
-        .send();
+        .acceptJson();
 
-    if (response.status() != 200) {
-      throw new IOException("request failed with status " + response.status());
-    }
+    long start = metrics.start();
+    HttpResponse response = cache.addHeaders(builder).send();
+    metrics.recordFetch(start);
+    return cache.process(response, this::decodeServerGroups);
+  }
 
-    return JsonUtils.parseResponse(response, this::decodeServerGroups);
+  /**
+   * Mutable state used while decoding a response. The decode functions are static and
+   * take the state as a parameter so that no lambdas need to be allocated per object.
+   */
+  private static final class DecodeState {
+    private final LoaderMetrics metrics;
+
+    // Repeated values such as the zone are shared across all instances in the response
+    private final StringPool pool = new StringPool();
+    private final List<ServerGroup> groups = new ArrayList<>();
+    private ServerGroup.Builder group;
+    private Instance.Builder instance;
+
+    DecodeState(LoaderMetrics metrics) {
+      this.metrics = metrics;
+    }
   }
 }
@@ -16,20 +16,30 @@
 package com.netflix.iep.servergroups;
 
 import tools.jackson.core.JsonParser;
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.ipc.http.HttpClient;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
 import com.netflix.spectator.ipc.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
@@ -55,20 +65,39 @@ public class EurekaLoader implements Loader {
    * discard every server group. This can happen if the set of Eureka status values is extended
    * or skews from the values known here.
    */
-  private static Instance.Status decodeStatus(String value) {
+  private static Instance.Status decodeStatus(String value, LoaderMetrics metrics) {
     if (value != null) {
       try {
         return Instance.Status.valueOf(value);
       } catch (IllegalArgumentException e) {
         LOGGER.warn("unknown Eureka instance status '{}', treating as UNKNOWN", value);
+        metrics.decodeWarning("unknownStatus");
       }
     }
     return Instance.Status.UNKNOWN;
   }
 
+  // Minimum size of the response before the applications will be decoded in parallel. For
+  // small responses, the overhead of scanning and splitting the data is not worth it.
+  private static final int DEFAULT_PARALLEL_THRESHOLD = 1024 * 1024;
+
+  // Number of shards to create per thread of the pool so that the work will be more evenly
+  // distributed if some applications are much larger than others.
+  private static final int SHARDS_PER_THREAD = 4;
+
   private final HttpClient client;
   private final URI uri;
   private final Predicate<String> accounts;
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+  private final URI deltaUri;
+  private final LoaderMetrics metrics;
+  private final ResponseCache cache;
+
+  // State of the full registry when using deltas. It will be null if the next load needs
+  // to fetch the full registry.
+  private Map<String, Registration> registry;
+  private List<ServerGroup> groups;
 
   /**
    * Create a new instance.
@@ -84,170 +113,427 @@ public class EurekaLoader implements Loader {
    *     should be set to match the set of accounts covered by other loaders being used.
    */
   public EurekaLoader(HttpClient client, URI uri, Predicate<String> accounts) {
+    this(client, uri, accounts, new Options());
+  }
+
+  /**
+   * Create a new instance that decodes the applications in parallel. The response will be
+   * scanned to find the range of data for each application, and then the ranges will be
+   * split into shards that are decoded using the pool. This can reduce the refresh time
+   * for large registries.
+   *
+   * @param client
+   *     HTTP client used to request data from Eureka.
+   * @param uri
+   *     Full URI to the {@code /apps} endpoint on the Eureka server.
+   * @param accounts
+   *     Condition used to filter the Eureka results by account. See
+   *     {@link #EurekaLoader(HttpClient, URI, Predicate)} for more details.
+   * @param pool
+   *     Pool used for decoding the applications in parallel. If null, then the response
+   *     will be decoded serially.
+   */
+  public EurekaLoader(
+      HttpClient client, URI uri, Predicate<String> accounts, ForkJoinPool pool) {
+    this(client, uri, accounts, new Options().withParallelDecoding(pool));
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param client
+   *     HTTP client used to request data from Eureka.
+   * @param uri
+   *     Full URI to the {@code /apps} endpoint on the Eureka server.
+   * @param accounts
+   *     Condition used to filter the Eureka results by account. See
+   *     {@link #EurekaLoader(HttpClient, URI, Predicate)} for more details.
+   * @param options
+   *     Additional options to customize the behavior of the loader.
+   */
+  public EurekaLoader(
+      HttpClient client, URI uri, Predicate<String> accounts, Options options) {
     this.client = client;
     this.uri = uri;
     this.accounts = accounts;
+    this.pool = options.pool;
+    this.parallelThreshold = options.parallelThreshold;
+    this.deltaUri = options.deltaUri;
+    this.metrics = new LoaderMetrics(options.registry, options.id);
+    this.cache = new ResponseCache(metrics);
   }
 
-  private void decodeMetadata(InstanceInfo info, JsonParser jp) throws IOException {
-    JsonUtils.forEachField(jp, (field, p) -> {
-      switch (field) {
-        case "accountId":
-          info.account = JsonUtils.stringValue(p);
-          break;
-        case "vpc-id":
-          info.builder.vpcId(JsonUtils.stringValue(p));
-          break;
-        case "ami-id":
-          info.builder.ami(JsonUtils.stringValue(p));
-          break;
-        case "availability-zone":
-          info.builder.zone(JsonUtils.stringValue(p));
-          break;
-        case "local-ipv4":
-          if (info.privateIp == null) {
-            info.privateIp = JsonUtils.stringValue(p);
-          } else {
-            JsonUtils.skipValue(p);
-          }
-          break;
-        case "ipv6":
-          info.builder.ipv6Address(JsonUtils.stringValue(p));
-          break;
-        case "instance-id":
-          info.node = JsonUtils.stringValue(p);
-          break;
-        case "instance-type":
-          String vmtype = JsonUtils.stringValue(p);
-          if (vmtype != null && VM_TYPE_PATTERN.matcher(vmtype).matches()) {
-            info.builder.vmtype(vmtype);
-          }
-          break;
-        default:
-          JsonUtils.skipValue(p);
-          break;
-      }
-    });
+  private static void decodeMetadataField(
+      InstanceInfo info, String field, JsonParser jp) throws IOException {
+    switch (field) {
+      case "accountId":
+        info.account = JsonUtils.stringValue(jp, info.pool);
+        break;
+      case "vpc-id":
+        info.builder.vpcId(JsonUtils.stringValue(jp, info.pool));
+        break;
+      case "ami-id":
+        info.builder.ami(JsonUtils.stringValue(jp, info.pool));
+        break;
+      case "availability-zone":
+        info.builder.zone(JsonUtils.stringValue(jp, info.pool));
+        break;
+      case "local-ipv4":
+        if (info.privateIp == null) {
+          info.privateIp = JsonUtils.stringValue(jp);
+        } else {
+          JsonUtils.skipValue(jp);
+        }
+        break;
+      case "ipv6":
+        info.builder.ipv6Address(JsonUtils.stringValue(jp));
+        break;
+      case "instance-id":
+        info.node = JsonUtils.stringValue(jp);
+        break;
+      case "instance-type":
+        String vmtype = JsonUtils.stringValue(jp, info.pool);
+        if (vmtype != null && VM_TYPE_PATTERN.matcher(vmtype).matches()) {
+          info.builder.vmtype(vmtype);
+        }
+        break;
+      default:
+        JsonUtils.skipValue(jp);
+        break;
+    }
   }
 
-  private void decodeDataCenterInfo(InstanceInfo info, JsonParser jp) throws IOException {
-    JsonUtils.forEachField(jp, (field, p) -> {
-      if ("metadata".equals(field)) {
-        decodeMetadata(info, p);
-      } else {
-        JsonUtils.skipValue(p);
-      }
-    });
-  }
-
-  private void decodeInstance(Map<GroupId, Set<Instance>> instances, JsonParser jp) throws IOException {
-    InstanceInfo info = new InstanceInfo();
-    JsonUtils.forEachField(jp, (field, p) -> {
-      switch (field) {
-        case "asgName":
-          info.group = JsonUtils.stringValue(p);
-          break;
-        case "ipAddr":
-          info.privateIp = JsonUtils.stringValue(p);
-          break;
-        case "instanceId":
-          info.node = JsonUtils.stringValue(p);
-          break;
-        case "status":
-          info.builder.status(decodeStatus(JsonUtils.stringValue(p)));
-          break;
-        case "dataCenterInfo":
-          decodeDataCenterInfo(info, p);
-          break;
-        default:
-          JsonUtils.skipValue(p);
-          break;
-      }
-    });
+  private static void decodeDataCenterInfoField(
+      InstanceInfo info, String field, JsonParser jp) throws IOException {
+    if ("metadata".equals(field)) {
+      JsonUtils.forEachField(jp, info, EurekaLoader::decodeMetadataField);
+    } else {
+      JsonUtils.skipValue(jp);
+    }
+  }
 
+  private static void decodeInstanceField(
+      InstanceInfo info, String field, JsonParser jp) throws IOException {
+    switch (field) {
+      case "asgName":
+        info.group = JsonUtils.stringValue(jp);
+        break;
+      case "ipAddr":
+        info.privateIp = JsonUtils.stringValue(jp);
+        break;
+      case "instanceId":
+        info.id = JsonUtils.stringValue(jp);
+        info.node = info.id;
+        break;
+      case "status":
+        info.status = JsonUtils.stringValue(jp, info.pool);
+        info.builder.status(decodeStatus(info.status, info.metrics));
+        break;
+      case "actionType":
+        info.actionType = JsonUtils.stringValue(jp, info.pool);
+        break;
+      case "dataCenterInfo":
+        JsonUtils.forEachField(jp, info, EurekaLoader::decodeDataCenterInfoField);
+        break;
+      default:
+        JsonUtils.skipValue(jp);
+        break;
+    }
+  }
 
-    if (info.group != null && accounts.test(info.account)) {
-      Instance instance = info.toInstance();
+  private static void decodeInstance(DecodeState state, JsonParser jp) throws IOException {
+    InstanceInfo info = state.info;
+    info.reset();
+    JsonUtils.forEachField(jp, info, EurekaLoader::decodeInstanceField);
+
+    GroupId id = null;
+    Instance instance = null;
+    if (info.group != null && state.accounts.test(info.account)) {
+      instance = info.toInstance();
       if (instance != null) {
         String platform = info.node.startsWith("i-") ? "ec2" : "titus";
-        GroupId id = new GroupId(platform, info.group);
-        instances.computeIfAbsent(id, k -> new HashSet<>()).add(instance);
+        id = new GroupId(platform, info.group);
+      } else {
+        info.metrics.decodeWarning("invalidInstance");
       }
     }
+
+    if (state.registry != null) {
+      state.update(info, id, instance);
+    } else if (instance != null) {
+      state.instances.computeIfAbsent(id, k -> new HashSet<>()).add(instance);
+    }
   }
 
-  private void decodeInstances(Map<GroupId, Set<Instance>> instances, JsonParser jp) throws IOException {
-    JsonUtils.forEach(jp, p -> decodeInstance(instances, p));
+  private static void decodeAppField(
+      DecodeState state, String field, JsonParser jp) throws IOException {
+    if ("instance".equals(field)) {
+      JsonUtils.forEach(jp, state, EurekaLoader::decodeInstance);
+    } else {
+      JsonUtils.skipValue(jp);
+    }
   }
 
-  private Map<GroupId, Set<Instance>> decodeApp(JsonParser jp) throws IOException {
-    Map<GroupId, Set<Instance>> instances = new HashMap<>();
-    JsonUtils.forEachField(jp, (field, p) -> {
-      if ("instance".equals(field)) {
-        decodeInstances(instances, p);
-      } else {
-        JsonUtils.skipValue(p);
-      }
-    });
-    return instances;
+  private static void decodeApp(DecodeState state, JsonParser jp) throws IOException {
+    JsonUtils.forEachField(jp, state, EurekaLoader::decodeAppField);
+  }
+
+  private static void decodeAppsField(
+      DecodeState state, String field, JsonParser jp) throws IOException {
+    switch (field) {
+      case "application":
+        JsonUtils.forEach(jp, state, EurekaLoader::decodeApp);
+        break;
+      case "apps__hashcode":
+        state.hashcode = JsonUtils.stringValue(jp);
+        break;
+      default:
+        JsonUtils.skipValue(jp);
+        break;
+    }
   }
 
-  private void merge(Map<GroupId, Set<Instance>> i1, Map<GroupId, Set<Instance>> i2) {
-    for (Map.Entry<GroupId, Set<Instance>> entry : i2.entrySet()) {
-      i1.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+  private static void decodeResponseField(
+      DecodeState state, String field, JsonParser jp) throws IOException {
+    if ("applications".equals(field)) {
+      JsonUtils.forEachField(jp, state, EurekaLoader::decodeAppsField);
+    } else {
+      JsonUtils.skipValue(jp);
     }
   }
 
-  private void decodeAppList(List<ServerGroup> groups, JsonParser jp) throws IOException {
-    Map<GroupId, Set<Instance>> instances = new HashMap<>();
-    JsonUtils.forEach(jp, p -> merge(instances, decodeApp(p)));
+  private List<ServerGroup> decodeApps(JsonParser jp) throws IOException {
+    return decode(jp, new DecodeState(accounts, metrics, false)).toGroups();
+  }
+
+  private static DecodeState decode(JsonParser jp, DecodeState state) throws IOException {
+    jp.nextToken();
+    JsonUtils.forEachField(jp, state, EurekaLoader::decodeResponseField);
+    return state;
+  }
+
+  private static void scanApp(List<int[]> ranges, JsonParser jp) throws IOException {
+    int start = (int) jp.currentTokenLocation().getByteOffset();
+    jp.skipChildren();
+    int end = (int) jp.currentLocation().getByteOffset();
+    ranges.add(new int[] {start, end});
+    jp.nextToken();
+  }
 
-    for (Map.Entry<GroupId, Set<Instance>> entry : instances.entrySet()) {
-      GroupId id = entry.getKey();
-      groups.add(ServerGroup.builder()
-          .platform(id.platform)
-          .group(id.group)
-          .addInstances(entry.getValue())
-          .build());
+  private static void scanAppsField(
+      List<int[]> ranges, String field, JsonParser jp) throws IOException {
+    if ("application".equals(field)) {
+      JsonUtils.forEach(jp, ranges, EurekaLoader::scanApp);
+    } else {
+      JsonUtils.skipValue(jp);
     }
   }
 
-  private void decodeApps(List<ServerGroup> groups, JsonParser jp) throws IOException {
-    JsonUtils.forEachField(jp, (field, p) -> {
-      if ("application".equals(field)) {
-        decodeAppList(groups, p);
-      } else {
-        JsonUtils.skipValue(p);
+  private static void scanResponseField(
+      List<int[]> ranges, String field, JsonParser jp) throws IOException {
+    if ("applications".equals(field)) {
+      JsonUtils.forEachField(jp, ranges, EurekaLoader::scanAppsField);
+    } else {
+      JsonUtils.skipValue(jp);
+    }
+  }
+
+  /**
+   * Find the byte range for each application in the response. This only needs to tokenize
+   * the data, the values are not decoded.
+   */
+  private static List<int[]> scanApps(byte[] data) throws IOException {
+    List<int[]> ranges = new ArrayList<>();
+    try (JsonParser jp = JsonUtils.createParser(data, 0, data.length)) {
+      jp.nextToken();
+      JsonUtils.forEachField(jp, ranges, EurekaLoader::scanResponseField);
+    }
+    return ranges;
+  }
+
+  private DecodeState decodeShard(
+      byte[] data, List<int[]> ranges, boolean track) throws IOException {
+    DecodeState state = new DecodeState(accounts, metrics, track);
+    for (int[] range : ranges) {
+      try (JsonParser jp = JsonUtils.createParser(data, range[0], range[1] - range[0])) {
+        jp.nextToken();
+        decodeApp(state, jp);
       }
-    });
+    }
+    return state;
   }
 
-  private List<ServerGroup> decodeApps(JsonParser jp) throws IOException {
-    jp.nextToken();
-    List<ServerGroup> groups = new ArrayList<>();
-    JsonUtils.forEachField(jp, (field, p) -> {
-      if ("applications".equals(field)) {
-        decodeApps(groups, p);
+  private List<ServerGroup> decodeAppsParallel(HttpResponse response) throws IOException {
+    byte[] data = JsonUtils.entity(response);
+    metrics.recordPayloadSize(response.entity().length, data.length);
+    return decode(data, false).toGroups();
+  }
+
+  /**
+   * Decode the response data. If a pool is configured and the data is large enough, then
+   * the applications will be decoded in parallel.
+   *
+   * @param data
+   *     Uncompressed response data.
+   * @param track
+   *     If true, then the state of all registrations will be tracked so that deltas can
+   *     be applied.
+   */
+  private DecodeState decode(byte[] data, boolean track) throws IOException {
+    if (pool == null || data.length < parallelThreshold) {
+      try (JsonParser jp = JsonUtils.createParser(data, 0, data.length)) {
+        return decode(jp, new DecodeState(accounts, metrics, track));
+      }
+    }
+
+    // Split the applications into shards with roughly the same amount of data
+    List<int[]> ranges = scanApps(data);
+    long shardSize = Math.max(1L, data.length / ((long) pool.getParallelism() * SHARDS_PER_THREAD));
+    List<Callable<DecodeState>> tasks = new ArrayList<>();
+    List<int[]> shard = new ArrayList<>();
+    long size = 0L;
+    for (int[] range : ranges) {
+      shard.add(range);
+      size += range[1] - range[0];
+      if (size >= shardSize) {
+        List<int[]> rs = shard;
+        tasks.add(() -> decodeShard(data, rs, track));
+        shard = new ArrayList<>();
+        size = 0L;
+      }
+    }
+    if (!shard.isEmpty()) {
+      List<int[]> rs = shard;
+      tasks.add(() -> decodeShard(data, rs, track));
+    }
+
+    // Combine the results for each shard
+    DecodeState state = new DecodeState(accounts, metrics, track);
+    try {
+      for (Future<DecodeState> future : pool.invokeAll(tasks)) {
+        state.merge(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while decoding Eureka response");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       } else {
-        JsonUtils.skipValue(p);
+        throw new IOException("failed to decode Eureka response", cause);
       }
-    });
-    return groups;
+    }
+    return state;
   }
 
-  @Override public List<ServerGroup> call() throws Exception {
+  /**
+   * Compute the hashcode for the registry using the same approach as the Eureka server. It
+   * is a string with the count of instances for each status ordered by the status name,
+   * for example {@code DOWN_1_UP_20_}.
+   */
+  static String reconcileHashCode(Collection<String> statuses) {
+    Map<String, Integer> counts = new TreeMap<>();
+    for (String status : statuses) {
+      counts.merge(status, 1, Integer::sum);
+    }
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      builder.append(entry.getKey()).append('_').append(entry.getValue()).append('_');
+    }
+    return builder.toString();
+  }
 
-    HttpResponse response = client.get(uri)
-        .customizeLogging(entry -> entry.withEndpoint("/eureka/v2/apps"))
+  private HttpRequestBuilder request(URI u, String endpoint) {
+    return client.get(u)
+        .customizeLogging(entry -> entry.withEndpoint(endpoint))
         .acceptGzip()
-        .acceptJson()
-        .send();
+        .acceptJson();
+  }
+
+  private HttpResponse send(URI u, String endpoint) throws IOException {
+    long start = metrics.start();
+    HttpResponse response = request(u, endpoint).send();
+    metrics.recordFetch(start);
+    return response;
+  }
 
+  private byte[] entity(HttpResponse response) throws IOException {
     if (response.status() != 200) {
       throw new IOException("request failed with status " + response.status());
     }
+    byte[] data = JsonUtils.entity(response);
+    metrics.recordPayloadSize(response.entity().length, data.length);
+    return data;
+  }
 
-    return JsonUtils.parseResponse(response, this::decodeApps);
+  /** Fetch the full registry and keep track of the registrations for applying deltas. */
+  private List<ServerGroup> loadFull() throws IOException {
+    HttpResponse response = send(uri, "/eureka/v2/apps");
+    long start = metrics.start();
+    DecodeState state = decode(entity(response), true);
+    registry = state.registry;
+    groups = state.toGroups();
+    metrics.recordDecode(start);
+    return groups;
+  }
+
+  /**
+   * Fetch the changes since the last load and apply them to the registry. Returns null if
+   * the updated registry does not match the hashcode from the server.
+   */
+  private List<ServerGroup> loadDelta() throws IOException {
+    // Registry is cleared while the delta is being applied so that if there is a failure
+    // the next load will fetch the full registry.
+    DecodeState state = new DecodeState(accounts, metrics, registry);
+    registry = null;
+
+    HttpResponse response = send(deltaUri, "/eureka/v2/apps/delta");
+    long start = metrics.start();
+    byte[] data = entity(response);
+    try (JsonParser jp = JsonUtils.createParser(data, 0, data.length)) {
+      decode(jp, state);
+    }
+
+    String expected = reconcileHashCode(state.statuses());
+    if (!expected.equals(state.hashcode)) {
+      LOGGER.debug("Eureka delta hashcode mismatch, expected {} but received {}",
+          expected, state.hashcode);
+      return null;
+    }
+
+    registry = state.registry;
+    if (state.updates > 0) {
+      groups = state.toGroups();
+    }
+    metrics.recordDecode(start);
+    return groups;
+  }
+
+  private synchronized List<ServerGroup> loadWithDelta() throws IOException {
+    if (registry != null) {
+      List<ServerGroup> gs = loadDelta();
+      if (gs != null) {
+        return gs;
+      }
+      LOGGER.info("registry does not match after applying Eureka delta, fetching full registry");
+    }
+    return loadFull();
+  }
+
+  @Override public List<ServerGroup> call() throws Exception {
+    if (deltaUri != null) {
+      return loadWithDelta();
+    }
+
+    long start = metrics.start();
+    HttpResponse response = cache.addHeaders(request(uri, "/eureka/v2/apps")).send();
+    metrics.recordFetch(start);
+    return pool == null
+        ? cache.process(response, this::decodeApps)
+        : cache.processResponse(response, this::decodeAppsParallel);
   }
 
   private static class GroupId {
@@ -276,15 +562,131 @@ public class EurekaLoader implements Loader {
     }
   }
 
+  /** State of a registration that is tracked for applying deltas. */
+  private static final class Registration {
+    private final String status;
+    private final GroupId id;
+    private final Instance instance;
+
+    Registration(String status, GroupId id, Instance instance) {
+      this.status = status;
+      this.id = id;
+      this.instance = instance;
+    }
+  }
+
+  /**
+   * Mutable state used while decoding a response. The decode functions are static and
+   * take the state as a parameter so that no lambdas need to be allocated per object.
+   */
+  private static final class DecodeState {
+    private final Predicate<String> accounts;
+    private final Map<GroupId, Set<Instance>> instances = new HashMap<>();
+
+    // All registrations including those that are filtered out. The hashcode for the
+    // registry is based on all instances, so they are needed to validate the deltas.
+    // It will be null if the registrations are not being tracked.
+    private final Map<String, Registration> registry;
+    private String hashcode;
+    private int updates;
+
+    // Repeated values such as the zone are shared across all instances in the response
+    private final InstanceInfo info;
+
+    DecodeState(Predicate<String> accounts, LoaderMetrics metrics, boolean track) {
+      this(accounts, metrics, track ? new HashMap<>() : null);
+    }
+
+    DecodeState(
+        Predicate<String> accounts,
+        LoaderMetrics metrics,
+        Map<String, Registration> registry) {
+      this.accounts = accounts;
+      this.info = new InstanceInfo(new StringPool(), metrics);
+      this.registry = registry;
+    }
+
+    void update(InstanceInfo info, GroupId id, Instance instance) {
+      String key = info.id != null ? info.id : info.node;
+      if (key == null) {
+        return;
+      }
+      ++updates;
+      if ("DELETED".equals(info.actionType)) {
+        registry.remove(key);
+      } else {
+        String status = info.status == null ? "UNKNOWN" : info.status;
+        registry.put(key, new Registration(status, id, instance));
+      }
+    }
+
+    void merge(DecodeState other) {
+      if (registry != null) {
+        registry.putAll(other.registry);
+      }
+      for (Map.Entry<GroupId, Set<Instance>> entry : other.instances.entrySet()) {
+        instances.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+      }
+    }
+
+    List<String> statuses() {
+      List<String> statuses = new ArrayList<>(registry.size());
+      for (Registration r : registry.values()) {
+        statuses.add(r.status);
+      }
+      return statuses;
+    }
+
+    List<ServerGroup> toGroups() {
+      if (registry != null) {
+        instances.clear();
+        for (Registration r : registry.values()) {
+          if (r.instance != null) {
+            instances.computeIfAbsent(r.id, k -> new HashSet<>()).add(r.instance);
+          }
+        }
+      }
+
+      List<ServerGroup> groups = new ArrayList<>(instances.size());
+      for (Map.Entry<GroupId, Set<Instance>> entry : instances.entrySet()) {
+        GroupId id = entry.getKey();
+        groups.add(ServerGroup.builder()
+            .platform(id.platform)
+            .group(id.group)
+            .addInstances(entry.getValue())
+            .build());
+      }
+      return groups;
+    }
+  }
+
+  /** Fields for the instance being decoded. It is reset and reused for each instance. */
   private static class InstanceInfo {
+    private String id;
+    private String status;
+    private String actionType;
     private String group;
     private String account;
     private String node;
     private String privateIp;
-    private final Instance.Builder builder;
+    private Instance.Builder builder;
+    private final StringPool pool;
+    private final LoaderMetrics metrics;
 
-    InstanceInfo() {
-      this.builder = Instance.builder();
+    InstanceInfo(StringPool pool, LoaderMetrics metrics) {
+      this.pool = pool;
+      this.metrics = metrics;
+    }
+
+    void reset() {
+      id = null;
+      status = null;
+      actionType = null;
+      group = null;
+      account = null;
+      node = null;
+      privateIp = null;
+      builder = Instance.builder();
     }
 
     Instance toInstance() {
@@ -299,4 +701,68 @@ public class EurekaLoader implements Loader {
           .build();
     }
   }
+
+  /** Additional options for the Eureka loader. */
+  public static final class Options {
+
+    private ForkJoinPool pool = null;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private URI deltaUri = null;
+    private Registry registry = new NoopRegistry();
+    private String id = "eureka";
+
+    /** Create a new instance with the default settings. */
+    public Options() {
+    }
+
+    /**
+     * Pool used to decode the applications in parallel for large responses. See
+     * {@link #EurekaLoader(HttpClient, URI, Predicate, ForkJoinPool)} for more details.
+     * Default is null meaning the response will be decoded serially.
+     */
+    public Options withParallelDecoding(ForkJoinPool pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    /** Minimum size of the response in bytes before it will be decoded in parallel. */
+    Options withParallelThreshold(int threshold) {
+      parallelThreshold = threshold;
+      return this;
+    }
+
+    /**
+     * Full URI to the {@code /apps/delta} endpoint on the Eureka server. If set, then after
+     * the full registry has been loaded once, subsequent loads will only fetch the changes
+     * and apply them to the previous state. The result is checked against the hashcode
+     * provided by the server and if it does not match, then the full registry will be
+     * fetched again. The server only keeps the changes for a limited window, so the
+     * refresh frequency should be shorter than the retention for the deltas. Default is
+     * null meaning the full registry will be fetched each time.
+     */
+    public Options withDeltaUri(URI uri) {
+      deltaUri = uri;
+      return this;
+    }
+
+    /**
+     * Registry for recording the time to fetch and decode the data along with the payload
+     * size and decode warnings. The metrics will be tagged with the id set using
+     * {@link #withId(String)}. Default is a no-op registry.
+     */
+    public Options withRegistry(Registry registry) {
+      this.registry = registry;
+      return this;
+    }
+
+    /**
+     * Id to use for the metrics. It should be unique for each loader, for example if there
+     * is a loader per region, and match the name used when registering the loader with
+     * {@link GroupService}. Default is {@code eureka}.
+     */
+    public Options withId(String id) {
+      this.id = id;
+      return this;
+    }
+  }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable object representing the changes to the merged set of server groups between
+ * two snapshots.
+ */
+public final class GroupDelta {
+
+  private final List<ServerGroup> addedGroups;
+  private final List<ServerGroup> removedGroups;
+  private final List<ServerGroup> resizedGroups;
+
+  private final List<InstanceChange> addedInstances;
+  private final List<InstanceChange> removedInstances;
+  private final List<InstanceChange> statusChanges;
+  private final List<InstanceChange> changedInstances;
+
+  private GroupDelta(Builder builder) {
+    addedGroups = Collections.unmodifiableList(builder.addedGroups);
+    removedGroups = Collections.unmodifiableList(builder.removedGroups);
+    resizedGroups = Collections.unmodifiableList(builder.resizedGroups);
+    addedInstances = Collections.unmodifiableList(builder.addedInstances);
+    removedInstances = Collections.unmodifiableList(builder.removedInstances);
+    statusChanges = Collections.unmodifiableList(builder.statusChanges);
+    changedInstances = Collections.unmodifiableList(builder.changedInstances);
+  }
+
+  /** Return the groups that are present in the new snapshot, but not the previous one. */
+  public List<ServerGroup> getAddedGroups() {
+    return addedGroups;
+  }
+
+  /** Return the groups that are present in the previous snapshot, but not the new one. */
+  public List<ServerGroup> getRemovedGroups() {
+    return removedGroups;
+  }
+
+  /**
+   * Return the groups where the min, max, or desired size has changed. The values are the
+   * groups from the new snapshot.
+   */
+  public List<ServerGroup> getResizedGroups() {
+    return resizedGroups;
+  }
+
+  /**
+   * Return the instances that have been added. This includes the instances of groups
+   * that have been added.
+   */
+  public List<InstanceChange> getAddedInstances() {
+    return addedInstances;
+  }
+
+  /**
+   * Return the instances that have been removed. This includes the instances of groups
+   * that have been removed.
+   */
+  public List<InstanceChange> getRemovedInstances() {
+    return removedInstances;
+  }
+
+  /** Return the instances where the status has changed. */
+  public List<InstanceChange> getStatusChanges() {
+    return statusChanges;
+  }
+
+  /**
+   * Return the instances where an attribute other than the status has changed, for
+   * example the ami, vmtype, or one of the addresses. If both the status and other
+   * attributes have changed, then the instance will be included in this list and in
+   * {@link #getStatusChanges()}.
+   */
+  public List<InstanceChange> getChangedInstances() {
+    return changedInstances;
+  }
+
+  /** Return true if there are no changes. */
+  public boolean isEmpty() {
+    return addedGroups.isEmpty()
+        && removedGroups.isEmpty()
+        && resizedGroups.isEmpty()
+        && addedInstances.isEmpty()
+        && removedInstances.isEmpty()
+        && statusChanges.isEmpty()
+        && changedInstances.isEmpty();
+  }
+
+  @Override public String toString() {
+    return "GroupDelta("
+        + "addedGroups=" + addedGroups.size() + ", "
+        + "removedGroups=" + removedGroups.size() + ", "
+        + "resizedGroups=" + resizedGroups.size() + ", "
+        + "addedInstances=" + addedInstances.size() + ", "
+        + "removedInstances=" + removedInstances.size() + ", "
+        + "statusChanges=" + statusChanges.size() + ", "
+        + "changedInstances=" + changedInstances.size()
+        + ")";
+  }
+
+  /**
+   * Immutable object representing a change to an instance. For an added instance the
+   * previous value will be {@code null} and for a removed instance the current value will
+   * be {@code null}.
+   */
+  public static final class InstanceChange {
+
+    private final String groupId;
+    private final Instance previous;
+    private final Instance current;
+
+    InstanceChange(String groupId, Instance previous, Instance current) {
+      this.groupId = groupId;
+      this.previous = previous;
+      this.current = current;
+    }
+
+    /** Return the id of the server group for the instance. */
+    public String getGroupId() {
+      return groupId;
+    }
+
+    /** Return the previous value for the instance or {@code null} if it was added. */
+    public Instance getPrevious() {
+      return previous;
+    }
+
+    /** Return the current value for the instance or {@code null} if it was removed. */
+    public Instance getCurrent() {
+      return current;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      InstanceChange that = (InstanceChange) o;
+      return Objects.equals(groupId, that.groupId) &&
+          Objects.equals(previous, that.previous) &&
+          Objects.equals(current, that.current);
+    }
+
+    @Override public int hashCode() {
+      return Objects.hash(groupId, previous, current);
+    }
+
+    @Override public String toString() {
+      return "InstanceChange("
+          + "groupId=" + groupId + ", "
+          + "previous=" + previous + ", "
+          + "current=" + current
+          + ")";
+    }
+  }
+
+  /** Builder for accumulating the changes for a delta. */
+  static final class Builder {
+    private final List<ServerGroup> addedGroups = new ArrayList<>();
+    private final List<ServerGroup> removedGroups = new ArrayList<>();
+    private final List<ServerGroup> resizedGroups = new ArrayList<>();
+    private final List<InstanceChange> addedInstances = new ArrayList<>();
+    private final List<InstanceChange> removedInstances = new ArrayList<>();
+    private final List<InstanceChange> statusChanges = new ArrayList<>();
+    private final List<InstanceChange> changedInstances = new ArrayList<>();
+
+    /**
+     * Add the changes between two versions of a group. Either group can be {@code null} to
+     * indicate that it was added or removed. The instance lists of server groups are sorted
+     * by node so they can be compared in a single pass.
+     */
+    Builder diff(ServerGroup previous, ServerGroup current) {
+      if (previous == current) {
+        return this;
+      }
+
+      if (previous == null) {
+        addedGroups.add(current);
+        for (Instance i : current.getInstances()) {
+          addedInstances.add(new InstanceChange(current.getId(), null, i));
+        }
+        return this;
+      }
+
+      if (current == null) {
+        removedGroups.add(previous);
+        for (Instance i : previous.getInstances()) {
+          removedInstances.add(new InstanceChange(previous.getId(), i, null));
+        }
+        return this;
+      }
+
+      if (previous.getMinSize() != current.getMinSize()
+          || previous.getMaxSize() != current.getMaxSize()
+          || previous.getDesiredSize() != current.getDesiredSize()) {
+        resizedGroups.add(current);
+      }
+
+      String id = current.getId();
+      List<Instance> is1 = previous.getInstances();
+      List<Instance> is2 = current.getInstances();
+      int i = 0;
+      int j = 0;
+      while (i < is1.size() && j < is2.size()) {
+        Instance i1 = is1.get(i);
+        Instance i2 = is2.get(j);
+        int cmp = i1.getNode().compareTo(i2.getNode());
+        if (cmp < 0) {
+          removedInstances.add(new InstanceChange(id, i1, null));
+          ++i;
+        } else if (cmp > 0) {
+          addedInstances.add(new InstanceChange(id, null, i2));
+          ++j;
+        } else {
+          if (i1.getStatus() != i2.getStatus()) {
+            statusChanges.add(new InstanceChange(id, i1, i2));
+          }
+          if (!sameAttributes(i1, i2)) {
+            changedInstances.add(new InstanceChange(id, i1, i2));
+          }
+          ++i;
+          ++j;
+        }
+      }
+      for (; i < is1.size(); ++i) {
+        removedInstances.add(new InstanceChange(id, is1.get(i), null));
+      }
+      for (; j < is2.size(); ++j) {
+        addedInstances.add(new InstanceChange(id, null, is2.get(j)));
+      }
+      return this;
+    }
+
+    /** Check if all attributes other than the node and status are the same. */
+    private static boolean sameAttributes(Instance i1, Instance i2) {
+      return Objects.equals(i1.getPrivateIpAddress(), i2.getPrivateIpAddress())
+          && Objects.equals(i1.getIpv6Address(), i2.getIpv6Address())
+          && Objects.equals(i1.getVpcId(), i2.getVpcId())
+          && Objects.equals(i1.getSubnetId(), i2.getSubnetId())
+          && Objects.equals(i1.getAmi(), i2.getAmi())
+          && Objects.equals(i1.getVmtype(), i2.getVmtype())
+          && Objects.equals(i1.getZone(), i2.getZone())
+          && Objects.equals(i1.getLaunchTime(), i2.getLaunchTime());
+    }
+
+    /** Create a new delta from this builder. */
+    GroupDelta build() {
+      return new GroupDelta(this);
+    }
+  }
+}
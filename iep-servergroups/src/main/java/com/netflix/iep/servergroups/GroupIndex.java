@@ -0,0 +1,214 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes over the groups and instances of a snapshot used to evaluate a
+ * {@link GroupQuery}. Groups and instances are identified by their position. The instances
+ * for a group are assigned a contiguous range of positions so that an instance position
+ * can be mapped back to the group.
+ *
+ * <p>Attributes with a low cardinality use a bitmap per value. The group name components
+ * can have a large number of distinct values, so they use a sorted array of the group
+ * positions instead to keep the size proportional to the number of groups.
+ */
+final class GroupIndex {
+
+  private static final int[] EMPTY = new int[0];
+
+  private static final BitSet EMPTY_BITS = new BitSet();
+
+  private final List<ServerGroup> groups;
+
+  // Position of the first instance for each group. The last entry is the total number
+  // of instances.
+  private final int[] offsets;
+
+  // Group level indexes
+  private final Map<String, BitSet> platforms;
+  private final Map<String, int[]> apps;
+  private final Map<String, int[]> clusters;
+  private final Map<String, int[]> stacks;
+
+  // Instance level indexes
+  private final Map<String, BitSet> zones;
+  private final Map<String, BitSet> vmtypes;
+  private final Map<Instance.Status, BitSet> statuses;
+
+  GroupIndex(List<ServerGroup> groups) {
+    this.groups = groups;
+    this.offsets = new int[groups.size() + 1];
+
+    platforms = new HashMap<>();
+    Map<String, Postings> appPostings = new HashMap<>();
+    Map<String, Postings> clusterPostings = new HashMap<>();
+    Map<String, Postings> stackPostings = new HashMap<>();
+
+    zones = new HashMap<>();
+    vmtypes = new HashMap<>();
+    statuses = new EnumMap<>(Instance.Status.class);
+
+    int pos = 0;
+    for (int g = 0; g < groups.size(); ++g) {
+      ServerGroup group = groups.get(g);
+      offsets[g] = pos;
+      set(platforms, group.getPlatform(), g);
+      add(appPostings, group.getApp(), g);
+      add(clusterPostings, group.getCluster(), g);
+      add(stackPostings, group.getStack(), g);
+      List<Instance> instances = group.getInstances();
+      if (instances instanceof CompactInstanceList) {
+        // Read the attributes directly to avoid creating the instance objects
+        CompactInstanceList compact = (CompactInstanceList) instances;
+        for (int i = 0; i < compact.size(); ++i) {
+          set(zones, compact.zone(i), pos);
+          set(vmtypes, compact.vmtype(i), pos);
+          set(statuses, compact.status(i), pos);
+          ++pos;
+        }
+      } else {
+        for (Instance instance : instances) {
+          set(zones, instance.getZone(), pos);
+          set(vmtypes, instance.getVmtype(), pos);
+          set(statuses, instance.getStatus(), pos);
+          ++pos;
+        }
+      }
+    }
+    offsets[groups.size()] = pos;
+
+    apps = toArrays(appPostings);
+    clusters = toArrays(clusterPostings);
+    stacks = toArrays(stackPostings);
+  }
+
+  private static <K> void set(Map<K, BitSet> index, K key, int pos) {
+    if (key != null) {
+      index.computeIfAbsent(key, k -> new BitSet()).set(pos);
+    }
+  }
+
+  private static void add(Map<String, Postings> index, String key, int pos) {
+    if (key != null) {
+      index.computeIfAbsent(key, k -> new Postings()).add(pos);
+    }
+  }
+
+  private static Map<String, int[]> toArrays(Map<String, Postings> index) {
+    Map<String, int[]> result = new HashMap<>(index.size() * 4 / 3 + 1);
+    for (Map.Entry<String, Postings> entry : index.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().toArray());
+    }
+    return result;
+  }
+
+  private static <K> BitSet lookup(Map<K, BitSet> index, K key) {
+    BitSet bits = index.get(key);
+    return bits == null ? EMPTY_BITS : bits;
+  }
+
+  private static int[] lookupPostings(Map<String, int[]> index, String key) {
+    int[] vs = index.get(key);
+    return vs == null ? EMPTY : vs;
+  }
+
+  /** Return the list of groups. */
+  List<ServerGroup> groups() {
+    return groups;
+  }
+
+  /** Return the number of groups. */
+  int numGroups() {
+    return groups.size();
+  }
+
+  /** Return the position of the first instance for a group. */
+  int start(int group) {
+    return offsets[group];
+  }
+
+  /** Return the position after the last instance for a group. */
+  int end(int group) {
+    return offsets[group + 1];
+  }
+
+  /** Return the instance at a given position. */
+  Instance instance(int group, int pos) {
+    return groups.get(group).getInstances().get(pos - offsets[group]);
+  }
+
+  /** Return the bitmap of groups for a platform. The bitmap must not be modified. */
+  BitSet platform(String platform) {
+    return lookup(platforms, platform);
+  }
+
+  /** Return the sorted positions of the groups for an app. The array must not be modified. */
+  int[] app(String app) {
+    return lookupPostings(apps, app);
+  }
+
+  /**
+   * Return the sorted positions of the groups for a cluster. The array must not be
+   * modified.
+   */
+  int[] cluster(String cluster) {
+    return lookupPostings(clusters, cluster);
+  }
+
+  /** Return the sorted positions of the groups for a stack. The array must not be modified. */
+  int[] stack(String stack) {
+    return lookupPostings(stacks, stack);
+  }
+
+  /** Return the bitmap of instances for a zone. The bitmap must not be modified. */
+  BitSet zone(String zone) {
+    return lookup(zones, zone);
+  }
+
+  /** Return the bitmap of instances for a vmtype. The bitmap must not be modified. */
+  BitSet vmtype(String vmtype) {
+    return lookup(vmtypes, vmtype);
+  }
+
+  /** Return the bitmap of instances with a given status. The bitmap must not be modified. */
+  BitSet status(Instance.Status status) {
+    return lookup(statuses, status);
+  }
+
+  /** Growable array of positions. */
+  private static final class Postings {
+    private int[] data = new int[4];
+    private int size;
+
+    void add(int pos) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = pos;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(data, size);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+/**
+ * Listener that will get invoked when the merged set of server groups is updated.
+ */
+@FunctionalInterface
+public interface GroupListener {
+
+  /**
+   * Invoked with the changes after a refresh updates the merged set of server groups.
+   * Listeners are invoked on a refresh thread in the order of the updates. They are not
+   * invoked while merging, so a slow listener will not block the other loaders, but it
+   * will delay the updates for all listeners. The implementation should be quick and
+   * not block.
+   *
+   * @param snapshot
+   *     New snapshot of the server groups.
+   * @param delta
+   *     Changes compared to the previous snapshot.
+   */
+  void onUpdate(GroupSnapshot snapshot, GroupDelta delta);
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the groups from each loader and incrementally maintains the merged view.
+ * When a loader is updated, only the groups whose id changed in that loader are merged
+ * again and the previously merged groups are reused for the rest. The result is the same
+ * as folding {@link ServerGroup#merge(Collection, Collection)} over the full lists from each
+ * loader in order.
+ */
+final class GroupMerger {
+
+  private final List<String> loaderNames;
+  private final boolean compact;
+  private final Map<String, Map<String, ServerGroup>> data;
+
+  private final Map<String, ServerGroup> merged;
+  private final Set<String> pending;
+
+  /**
+   * Create a new instance.
+   *
+   * @param loaderNames
+   *     Names of the loaders. The groups will be merged in the order of the names.
+   * @param compact
+   *     If true, then the merged groups will use the compact representation for the
+   *     instances.
+   */
+  GroupMerger(Collection<String> loaderNames, boolean compact) {
+    this.loaderNames = new ArrayList<>(loaderNames);
+    this.compact = compact;
+    this.data = new HashMap<>();
+    this.merged = new LinkedHashMap<>();
+    this.pending = new HashSet<>();
+  }
+
+  /**
+   * Update the set of groups for a loader. The ids of groups that have been added, removed,
+   * or changed compared to the previous update for the loader will be merged again on the
+   * next call to {@link #merge()}.
+   *
+   * @return
+   *     True if any of the groups changed compared to the previous update.
+   */
+  synchronized boolean update(String loaderName, List<ServerGroup> groups) {
+    Map<String, ServerGroup> previous = data.get(loaderName);
+    Map<String, ServerGroup> current = new HashMap<>(groups.size());
+    boolean changed = false;
+    for (ServerGroup group : groups) {
+      current.put(group.getId(), group);
+      ServerGroup old = (previous == null) ? null : previous.remove(group.getId());
+      if (old != group && !group.equals(old)) {
+        markChanged(group);
+        changed = true;
+      }
+    }
+    if (previous != null) {
+      for (ServerGroup group : previous.values()) {
+        markChanged(group);
+        changed = true;
+      }
+    }
+    data.put(loaderName, current);
+    return changed;
+  }
+
+  /**
+   * Mark the group as changed. The nimble group and transplant group are merged together,
+   * so a change to either of them requires both to be recomputed.
+   */
+  private void markChanged(ServerGroup group) {
+    pending.add(group.getId());
+    pending.add(group.nimblePartnerId());
+  }
+
+  /**
+   * Convert the groups to use the compact representation for the instances if enabled for
+   * this merger.
+   */
+  List<ServerGroup> compact(List<ServerGroup> groups) {
+    if (!compact) {
+      return groups;
+    }
+    List<ServerGroup> result = new ArrayList<>(groups.size());
+    for (ServerGroup group : groups) {
+      result.add(group.toCompact());
+    }
+    return result;
+  }
+
+  /** Return the current set of merged groups. */
+  synchronized List<ServerGroup> merge() {
+    return merge(null);
+  }
+
+  /**
+   * Return the current set of merged groups.
+   *
+   * @param delta
+   *     If not null, then the changes to the merged groups since the last call will be
+   *     added to the builder.
+   */
+  synchronized List<ServerGroup> merge(GroupDelta.Builder delta) {
+    if (!pending.isEmpty()) {
+      List<ServerGroup> groups = new ArrayList<>();
+      for (String loaderName : loaderNames) {
+        Map<String, ServerGroup> loaderGroups = data.get(loaderName);
+        if (loaderGroups == null) {
+          continue;
+        }
+        List<ServerGroup> changed = new ArrayList<>();
+        for (String id : pending) {
+          ServerGroup group = loaderGroups.get(id);
+          if (group != null) {
+            changed.add(group);
+          }
+        }
+        if (!changed.isEmpty()) {
+          groups = ServerGroup.merge(groups, changed);
+        }
+      }
+
+      Map<String, ServerGroup> updated = new HashMap<>(groups.size());
+      for (ServerGroup group : compact(groups)) {
+        updated.put(group.getId(), group);
+      }
+      for (String id : pending) {
+        ServerGroup previous = merged.remove(id);
+        ServerGroup current = updated.get(id);
+        if (current != null) {
+          merged.put(id, current);
+        }
+        if (delta != null) {
+          delta.diff(previous, current);
+        }
+      }
+      pending.clear();
+    }
+    return new ArrayList<>(merged.values());
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable set of components extracted from a group name using the Frigga parsing rules.
+ * The same group names are seen on every refresh and for each merge, so the parsed values
+ * are cached to avoid re-parsing and so that the derived strings are shared across all
+ * server groups with the same name.
+ *
+ * <p>The cache is keyed on the current set of groups for each owner, e.g. a
+ * {@link GroupService}. Each time an owner publishes a new snapshot,
+ * {@link #retain(Object, Collection)} is called with the groups so the names for its live
+ * groups are kept and names for groups that are gone can be collected. The names retained
+ * by other owners are not affected, so multiple services in the same process each keep
+ * the names they are using. An owner that is stopped should call {@link #release(Object)}.
+ * Names parsed in between, e.g. for new groups, are kept in a separate map until the next
+ * snapshot.
+ */
+final class GroupName {
+
+  // Maximum number of names parsed since the last snapshot. Bounds the memory use if
+  // groups are created without a service that calls retain.
+  private static final int MAX_RECENT = 1 << 18;
+
+  private static final ConcurrentHashMap<String, GroupName> RECENT = new ConcurrentHashMap<>();
+
+  // Names for the groups of the latest snapshot for each owner. Access must be synchronized
+  // on the map, the values are copied to the list that is used for lookups.
+  private static final Map<Object, Map<String, GroupName>> OWNERS = new HashMap<>();
+
+  private static volatile List<Map<String, GroupName>> retained = Collections.emptyList();
+
+  /**
+   * Return the parsed components for a group name. If the name is present in the cache,
+   * then the existing instance will be returned.
+   */
+  static GroupName parse(String group) {
+    GroupName name = findRetained(group);
+    if (name == null) {
+      name = RECENT.get(group);
+      if (name == null) {
+        if (RECENT.size() >= MAX_RECENT) {
+          RECENT.clear();
+        }
+        name = new GroupName(group);
+        GroupName previous = RECENT.putIfAbsent(group, name);
+        if (previous != null) {
+          name = previous;
+        }
+      }
+    }
+    return name;
+  }
+
+  private static GroupName findRetained(String group) {
+    List<Map<String, GroupName>> maps = retained;
+    for (int i = 0; i < maps.size(); ++i) {
+      GroupName name = maps.get(i).get(group);
+      if (name != null) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Update the cache so it has the names for the provided groups. Names that were retained
+   * for the owner and are not used by any of the groups will be dropped from the cache
+   * unless they are retained by another owner.
+   *
+   * @param owner
+   *     Object that is keeping the groups, typically a {@link GroupService}.
+   * @param groups
+   *     Current set of groups for the owner.
+   */
+  static void retain(Object owner, Collection<ServerGroup> groups) {
+    Map<String, GroupName> names = new HashMap<>(groups.size() * 4 / 3 + 1);
+    for (ServerGroup group : groups) {
+      GroupName name = group.name();
+      names.put(name.group(), name);
+    }
+    synchronized (OWNERS) {
+      OWNERS.put(owner, names);
+      retained = new ArrayList<>(OWNERS.values());
+      RECENT.clear();
+    }
+  }
+
+  /** Drop the names retained for the owner. */
+  static void release(Object owner) {
+    synchronized (OWNERS) {
+      if (OWNERS.remove(owner) != null) {
+        retained = new ArrayList<>(OWNERS.values());
+      }
+    }
+  }
+
+  private final String group;
+  private final String app;
+  private final String cluster;
+  private final String stack;
+  private final String detail;
+  private final String shard1;
+  private final String shard2;
+
+  private GroupName(String group) {
+    com.netflix.spectator.ipc.ServerGroup sg =
+        com.netflix.spectator.ipc.ServerGroup.parse(group);
+    this.group = group;
+    this.app = sg.app();
+    this.cluster = sg.cluster();
+    this.stack = sg.stack();
+    this.detail = sg.detail();
+    this.shard1 = sg.shard1();
+    this.shard2 = sg.shard2();
+  }
+
+  String group() {
+    return group;
+  }
+
+  String app() {
+    return app;
+  }
+
+  String cluster() {
+    return cluster;
+  }
+
+  String stack() {
+    return stack;
+  }
+
+  String detail() {
+    return detail;
+  }
+
+  String shard1() {
+    return shard1;
+  }
+
+  String shard2() {
+    return shard2;
+  }
+
+  // The other components are derived from the group name, so it is sufficient to only
+  // compare the group.
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    GroupName that = (GroupName) o;
+    return group.equals(that.group);
+  }
+
+  @Override public int hashCode() {
+    return group.hashCode();
+  }
+
+  @Override public String toString() {
+    return group;
+  }
+}
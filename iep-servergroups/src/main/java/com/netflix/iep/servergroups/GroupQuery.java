@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Query for selecting server groups and instances from a {@link GroupSnapshot}. Each call
+ * adds a predicate and all predicates must match. Example:
+ *
+ * <pre>
+ * List&lt;Instance&gt; instances = snapshot.query()
+ *     .platform("titus")
+ *     .app("foo")
+ *     .status(Instance.Status.UP)
+ *     .instances();
+ * </pre>
+ *
+ * <p>The predicates are evaluated using the indexes for the snapshot rather than by
+ * filtering the lists of groups and instances. The results are the group and instance
+ * objects from the snapshot, no filtered copies of the groups are created.
+ *
+ * <p>A query is not thread safe, but it is cheap to create so a new one should be used
+ * for each evaluation.
+ */
+public final class GroupQuery {
+
+  private final GroupIndex index;
+
+  private final List<BitSet> groupBitmaps = new ArrayList<>();
+  private final List<int[]> groupPostings = new ArrayList<>();
+  private final List<BitSet> instanceBitmaps = new ArrayList<>();
+
+  GroupQuery(GroupIndex index) {
+    this.index = index;
+  }
+
+  /** Restrict to groups for the given platform, e.g. {@code ec2} or {@code titus}. */
+  public GroupQuery platform(String platform) {
+    groupBitmaps.add(index.platform(platform));
+    return this;
+  }
+
+  /** Restrict to groups for the given app. */
+  public GroupQuery app(String app) {
+    groupPostings.add(index.app(app));
+    return this;
+  }
+
+  /** Restrict to groups for the given cluster. */
+  public GroupQuery cluster(String cluster) {
+    groupPostings.add(index.cluster(cluster));
+    return this;
+  }
+
+  /** Restrict to groups with the given stack. */
+  public GroupQuery stack(String stack) {
+    groupPostings.add(index.stack(stack));
+    return this;
+  }
+
+  /** Restrict to instances in the given availability zone. */
+  public GroupQuery zone(String zone) {
+    instanceBitmaps.add(index.zone(zone));
+    return this;
+  }
+
+  /** Restrict to instances with the given vmtype. */
+  public GroupQuery vmtype(String vmtype) {
+    instanceBitmaps.add(index.vmtype(vmtype));
+    return this;
+  }
+
+  /** Restrict to instances with the given status. */
+  public GroupQuery status(Instance.Status status) {
+    instanceBitmaps.add(index.status(status));
+    return this;
+  }
+
+  /**
+   * Return the groups that match the query. If there are instance level predicates, then
+   * only groups with at least one matching instance will be included.
+   */
+  public List<ServerGroup> groups() {
+    Plan plan = new Plan();
+    List<ServerGroup> result = new ArrayList<>();
+    plan.forEachGroup(g -> {
+      if (instanceBitmaps.isEmpty() || plan.nextInstance(index.start(g), index.end(g)) >= 0) {
+        result.add(index.groups().get(g));
+      }
+    });
+    return result;
+  }
+
+  /** Return the instances that match the query. */
+  public List<Instance> instances() {
+    Plan plan = new Plan();
+    List<Instance> result = new ArrayList<>();
+    plan.forEachGroup(g -> plan.forEachInstance(g, i -> result.add(index.instance(g, i))));
+    return result;
+  }
+
+  /** Return the number of instances that match the query. */
+  public int count() {
+    Plan plan = new Plan();
+    int[] count = new int[1];
+    plan.forEachGroup(g -> plan.forEachInstance(g, i -> ++count[0]));
+    return count[0];
+  }
+
+  /** Return the intersection of two sorted arrays. */
+  static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] == b[j]) {
+        result[n++] = a[i];
+        ++i;
+        ++j;
+      } else if (a[i] < b[j]) {
+        ++i;
+      } else {
+        ++j;
+      }
+    }
+    return n == result.length ? result : Arrays.copyOf(result, n);
+  }
+
+  /** Combine a list of bitmaps, returns null if the list is empty. */
+  private static BitSet and(List<BitSet> bitmaps) {
+    if (bitmaps.isEmpty()) {
+      return null;
+    } else if (bitmaps.size() == 1) {
+      // Safe to use directly since it will not be modified
+      return bitmaps.get(0);
+    } else {
+      BitSet result = (BitSet) bitmaps.get(0).clone();
+      for (int i = 1; i < bitmaps.size(); ++i) {
+        result.and(bitmaps.get(i));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Strategy for evaluating the predicates. If there are any predicates on the name
+   * components, then the posting arrays are intersected to get a small set of candidate
+   * groups and the other predicates are checked for each candidate. Otherwise, the bitmaps
+   * are intersected and the set bits are scanned.
+   */
+  private final class Plan {
+    // Candidate groups, null if all groups are candidates
+    private final int[] candidates;
+
+    // Combined bitmaps, null if there are no predicates for the level
+    private final BitSet groupFilter;
+    private final BitSet instanceFilter;
+
+    Plan() {
+      if (groupPostings.isEmpty()) {
+        candidates = null;
+        groupFilter = and(groupBitmaps);
+        instanceFilter = and(instanceBitmaps);
+      } else {
+        int[] vs = groupPostings.get(0);
+        for (int i = 1; i < groupPostings.size(); ++i) {
+          vs = intersect(vs, groupPostings.get(i));
+        }
+        candidates = vs;
+        groupFilter = null;
+        instanceFilter = null;
+      }
+    }
+
+    /** Invoke the consumer with the position of each group matching the group predicates. */
+    void forEachGroup(IntConsumer consumer) {
+      if (candidates != null) {
+        for (int g : candidates) {
+          if (matchesGroupBitmaps(g)) {
+            consumer.accept(g);
+          }
+        }
+      } else if (groupFilter != null) {
+        for (int g = groupFilter.nextSetBit(0); g >= 0; g = groupFilter.nextSetBit(g + 1)) {
+          consumer.accept(g);
+        }
+      } else {
+        int n = index.numGroups();
+        for (int g = 0; g < n; ++g) {
+          consumer.accept(g);
+        }
+      }
+    }
+
+    private boolean matchesGroupBitmaps(int g) {
+      for (BitSet bitmap : groupBitmaps) {
+        if (!bitmap.get(g)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean matchesInstanceBitmaps(int pos) {
+      for (BitSet bitmap : instanceBitmaps) {
+        if (!bitmap.get(pos)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Invoke the consumer with the position of each matching instance for a group. */
+    void forEachInstance(int g, IntConsumer consumer) {
+      int end = index.end(g);
+      int pos = nextInstance(index.start(g), end);
+      while (pos >= 0) {
+        consumer.accept(pos);
+        pos = nextInstance(pos + 1, end);
+      }
+    }
+
+    /**
+     * Return the position of the next matching instance in the range or -1 if there are
+     * no more matches.
+     */
+    int nextInstance(int start, int end) {
+      if (instanceFilter != null) {
+        int pos = instanceFilter.nextSetBit(start);
+        return pos >= 0 && pos < end ? pos : -1;
+      }
+      // For a small set of candidate groups checking the bits directly is cheaper than
+      // combining the full bitmaps
+      for (int pos = start; pos < end; ++pos) {
+        if (matchesInstanceBitmaps(pos)) {
+          return pos;
+        }
+      }
+      return -1;
+    }
+  }
+}
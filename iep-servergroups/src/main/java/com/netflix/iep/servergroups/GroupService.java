@@ -24,14 +24,33 @@ import com.netflix.spectator.impl.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for keeping a local cache of the server groups for an environment and refreshing
@@ -44,51 +63,154 @@ public class GroupService extends AbstractService {
   private final Registry registry;
   private final Duration frequency;
   private final Map<String, Loader> loaders;
+  private final Duration startupTimeout;
+  private final Set<String> optionalLoaders;
+  private final Path snapshotFile;
+  private final Duration restoredSnapshotTimeout;
+
+  private final Map<String, Duration> loaderFrequencies;
+  private final Map<String, Duration> loaderTimeouts;
+  private final Duration maxBackoff;
+  private final double jitter;
 
   private final ConcurrentHashMap<String, AtomicLong> lastUpdateTimes;
   private final Scheduler scheduler;
+  private final ExecutorService timeoutExecutor;
+  private final ExecutorService snapshotWriter;
+  private final AtomicReference<GroupSnapshot> pendingWrite = new AtomicReference<>();
+  private final Map<String, RefreshTask> tasks = new ConcurrentHashMap<>();
+
+  private final Map<String, LoaderMetrics> loaderMetrics = new HashMap<>();
+  private final AtomicLong mergedGroups;
+  private final AtomicLong mergedInstances;
+
+  private final GroupMerger merger;
+  private volatile GroupSnapshot snapshot;
+
+  // Set to true if the current snapshot was restored from the snapshot file and has not
+  // yet been replaced with data from the loaders. While restored, the time of the last
+  // successful load for each loader is tracked so the data age can be updated once the
+  // data is actually being served.
+  private volatile boolean restored;
+  private volatile long restoredTime;
+  private final Map<String, Long> loaded = new ConcurrentHashMap<>();
 
-  private final ConcurrentHashMap<String, List<ServerGroup>> cachedData;
-  private volatile List<ServerGroup> merged;
+  private final Set<GroupListener> listeners = ConcurrentHashMap.newKeySet();
+
+  // Updates that have not yet been passed to the listeners and a flag indicating if a thread
+  // is currently invoking the listeners. Access is guarded by the merge lock.
+  private final ArrayDeque<Update> pendingUpdates = new ArrayDeque<>();
+  private boolean dispatching;
+
+  // Set when the service is stopped, access is guarded by the merge lock
+  private boolean stopped;
 
   /**
    * Create a new instance.
    *
    * @param registry
-   *     Registry for tracking the ages for refreshing the data from the provided loaders.
+   *     Registry for tracking the ages and the cost of refreshing the data from the
+   *     provided loaders.
    * @param frequency
    *     How frequently to refresh the data from the loaders.
    * @param loaders
    *     Map with a set of loaders to get server group data. The key is the name of the loader
-   *     used for logging and metrics.
+   *     used for logging and metrics. It should match the id used for the metrics recorded
+   *     by the loader, see {@link EddaLoader} and {@link EurekaLoader.Options#withId(String)}.
    */
   public GroupService(
       Registry registry,
       Duration frequency,
       Map<String, Loader> loaders) {
+    this(registry, frequency, loaders, new Options());
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param registry
+   *     Registry for tracking the ages and the cost of refreshing the data from the
+   *     provided loaders.
+   * @param frequency
+   *     How frequently to refresh the data from the loaders.
+   * @param loaders
+   *     Map with a set of loaders to get server group data. The key is the name of the loader
+   *     used for logging and metrics. It should match the id used for the metrics recorded
+   *     by the loader, see {@link EddaLoader} and {@link EurekaLoader.Options#withId(String)}.
+   * @param options
+   *     Additional options to customize the behavior of the service.
+   */
+  public GroupService(
+      Registry registry,
+      Duration frequency,
+      Map<String, Loader> loaders,
+      Options options) {
     this.registry = registry;
     this.frequency = frequency;
     this.loaders = new LinkedHashMap<>(loaders);
+    this.startupTimeout = options.startupTimeout;
+    this.optionalLoaders = new HashSet<>(options.optionalLoaders);
+    this.snapshotFile = options.snapshotFile;
+    this.restoredSnapshotTimeout = options.restoredSnapshotTimeout;
+    this.loaderFrequencies = new HashMap<>(options.loaderFrequencies);
+    this.loaderTimeouts = new HashMap<>(options.loaderTimeouts);
+    this.maxBackoff = options.maxBackoff;
+    this.jitter = options.jitter;
     this.lastUpdateTimes = new ConcurrentHashMap<>();
     this.scheduler = new Scheduler(registry, "GroupService", loaders.size());
-    this.cachedData = new ConcurrentHashMap<>();
+    this.timeoutExecutor = loaderTimeouts.isEmpty()
+        ? null
+        : Executors.newCachedThreadPool(GroupService::newLoaderThread);
+    this.snapshotWriter = snapshotFile == null
+        ? null
+        : Executors.newSingleThreadExecutor(GroupService::newSnapshotThread);
+    for (String name : this.loaders.keySet()) {
+      loaderMetrics.put(name, new LoaderMetrics(registry, name));
+    }
+    // Polled so the values keep being reported when the snapshot does not change
+    this.mergedGroups = PolledMeter.using(registry)
+        .withName("iep.groups.mergedGroups")
+        .monitorValue(new AtomicLong());
+    this.mergedInstances = PolledMeter.using(registry)
+        .withName("iep.groups.mergedInstances")
+        .monitorValue(new AtomicLong());
+    this.merger = new GroupMerger(this.loaders.keySet(), options.compactInstances);
+    this.snapshot = GroupSnapshot.empty();
   }
 
   /**
    * Refresh the groups for a given loader once and return true if successful and the groups
    * have been cached.
    */
-  private boolean refreshOnce(String loaderName, Loader loader) {
+  private boolean refreshOnce(String loaderName, Loader loader, Duration timeout) {
     AtomicLong lastUpdateTime = lastUpdateTimes.get(loaderName);
     if (lastUpdateTime == null) {
       // This can happen on shutdown if a refresh is scheduled after the map has
       // been cleared.
       return false;
     }
+    LoaderMetrics metrics = loaderMetrics.get(loaderName);
     try {
-      cachedData.put(loaderName, loader.call());
-      lastUpdateTime.set(registry.clock().wallTime());
-      merged = null;
+      long start = metrics.start();
+      List<ServerGroup> groups = load(loader, timeout);
+      metrics.recordLoad(start);
+      metrics.recordGroups(groups);
+
+      start = metrics.start();
+      boolean changed = merger.update(loaderName, groups);
+      long now = registry.clock().wallTime();
+      if (restored) {
+        loaded.put(loaderName, now);
+        updateSnapshot();
+      } else if (changed) {
+        updateSnapshot();
+      }
+      metrics.recordMerge(start);
+      if (!restored) {
+        // The data from the loader is only being served once the restored snapshot has
+        // been replaced, until then the age should continue to reflect the restored data
+        lastUpdateTime.set(now);
+      }
       return true;
     } catch (Exception e) {
       LOGGER.warn("failed to refresh groups from {}", loaderName, e);
@@ -96,9 +218,397 @@ public class GroupService extends AbstractService {
     }
   }
 
+  /**
+   * Merge the latest data from the loaders and publish a new snapshot. This is done on the
+   * refresh thread so that readers only need to access the volatile field. The lock ensures
+   * that concurrent refreshes for different loaders cannot publish an older merge result
+   * after a newer one, and that the updates for the listeners are queued in order. The
+   * listeners are invoked after the lock is released.
+   */
+  private void updateSnapshot() {
+    boolean dispatch;
+    synchronized (merger) {
+      dispatch = publishSnapshot();
+    }
+    if (dispatch) {
+      dispatchUpdates();
+    }
+  }
+
+  /**
+   * Publish a new snapshot. Must be called while holding the merge lock. Returns true if
+   * the caller should dispatch the queued updates to the listeners.
+   */
+  private boolean publishSnapshot() {
+    if (restored && !canReplaceRestored()) {
+      // Keep using the restored snapshot until the required loaders have data, otherwise
+      // the groups that are only known to the remaining loaders would be dropped
+      return false;
+    }
+
+    GroupDelta.Builder builder = new GroupDelta.Builder();
+    GroupSnapshot previous = snapshot;
+    GroupSnapshot s = GroupSnapshot.create(merger.merge(builder));
+    snapshot = s;
+    recordMerged(s);
+    retainNames(s);
+
+    // The delta from the merger is relative to the loader data, when replacing the
+    // restored snapshot it needs to be computed against the groups that were being served
+    GroupDelta delta = restored ? diff(previous, s) : builder.build();
+    if (restored) {
+      restored = false;
+      loaded.forEach((name, time) -> {
+        AtomicLong lastUpdateTime = lastUpdateTimes.get(name);
+        if (lastUpdateTime != null) {
+          lastUpdateTime.set(time);
+        }
+      });
+      loaded.clear();
+    }
+    if (snapshotFile != null) {
+      saveSnapshot(s);
+    }
+    return !delta.isEmpty() && enqueueUpdate(new Update(s, delta, listeners));
+  }
+
+  /**
+   * Queue an update for the listeners. Must be called while holding the merge lock.
+   * Returns true if the caller should dispatch the updates, otherwise another thread is
+   * already dispatching and will pick up the new update.
+   */
+  private boolean enqueueUpdate(Update update) {
+    pendingUpdates.add(update);
+    if (dispatching) {
+      return false;
+    }
+    dispatching = true;
+    return true;
+  }
+
+  /**
+   * Invoke the listeners for the queued updates. Only one thread will dispatch at a time,
+   * so the listeners see the updates in order, but a slow listener will not block the
+   * merges for the loaders.
+   */
+  private void dispatchUpdates() {
+    while (true) {
+      Update update;
+      synchronized (merger) {
+        update = pendingUpdates.poll();
+        if (update == null) {
+          dispatching = false;
+          return;
+        }
+      }
+      for (GroupListener listener : update.listeners) {
+        // Skip listeners that were removed after the update was queued
+        if (listeners.contains(listener)) {
+          invokeListener(listener, update.snapshot, update.delta);
+        }
+      }
+    }
+  }
+
+  /**
+   * Check if the restored snapshot can be replaced. That is the case once all required
+   * loaders have been loaded successfully, or if the timeout for the restored snapshot has
+   * expired so that a required loader that keeps failing does not result in stale data
+   * being served indefinitely.
+   */
+  private boolean canReplaceRestored() {
+    List<String> pending = new ArrayList<>();
+    for (String name : loaders.keySet()) {
+      if (!optionalLoaders.contains(name) && !loaded.containsKey(name)) {
+        pending.add(name);
+      }
+    }
+    if (pending.isEmpty()) {
+      return true;
+    }
+    long age = registry.clock().wallTime() - restoredTime;
+    if (age >= restoredSnapshotTimeout.toMillis()) {
+      LOGGER.warn("replacing restored snapshot after {}, still waiting for {}",
+          restoredSnapshotTimeout, pending);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Keep the parsed names for the groups in the snapshot so they can be reused by the next
+   * load. Must be called while holding the merge lock. After the service has been stopped
+   * the names are released, so a refresh that completes late should not retain them again.
+   */
+  private void retainNames(GroupSnapshot s) {
+    if (!stopped) {
+      GroupName.retain(this, s.getGroups());
+    }
+  }
+
+  private void recordMerged(GroupSnapshot s) {
+    mergedGroups.set(s.getGroups().size());
+    mergedInstances.set(LoaderMetrics.instanceCount(s.getGroups()));
+  }
+
+  private static GroupDelta diff(GroupSnapshot previous, GroupSnapshot current) {
+    GroupDelta.Builder builder = new GroupDelta.Builder();
+    for (ServerGroup group : previous.getGroups()) {
+      builder.diff(group, current.findById(group.getId()));
+    }
+    for (ServerGroup group : current.getGroups()) {
+      if (previous.findById(group.getId()) == null) {
+        builder.diff(null, group);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Write the snapshot to the file in the background so the merge lock is not held while
+   * encoding and writing the data. Only the latest snapshot needs to be written, if a write
+   * is already pending, then it will pick up the new snapshot instead.
+   */
+  private void saveSnapshot(GroupSnapshot s) {
+    if (pendingWrite.getAndSet(s) == null) {
+      try {
+        snapshotWriter.execute(this::writeSnapshot);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("service is stopped, snapshot file will not be updated");
+      }
+    }
+  }
+
+  private void writeSnapshot() {
+    GroupSnapshot s = pendingWrite.getAndSet(null);
+    if (s != null) {
+      try {
+        SnapshotFile.write(snapshotFile, registry.clock().wallTime(), s.getGroups());
+      } catch (Exception e) {
+        LOGGER.warn("failed to write snapshot file {}", snapshotFile, e);
+      }
+    }
+  }
+
+  /**
+   * Restore the snapshot from the file if available. Returns the time the snapshot was
+   * written or -1 if no snapshot could be restored.
+   */
+  private long restoreSnapshot() {
+    if (snapshotFile == null || !Files.exists(snapshotFile)) {
+      return -1L;
+    }
+    try {
+      SnapshotFile.Data data = SnapshotFile.read(snapshotFile);
+      boolean dispatch;
+      synchronized (merger) {
+        GroupSnapshot previous = snapshot;
+        GroupSnapshot s = GroupSnapshot.create(merger.compact(data.groups()));
+        snapshot = s;
+        recordMerged(s);
+        retainNames(s);
+        restored = true;
+        restoredTime = registry.clock().wallTime();
+        GroupDelta delta = diff(previous, s);
+        dispatch = !delta.isEmpty() && enqueueUpdate(new Update(s, delta, listeners));
+      }
+      if (dispatch) {
+        dispatchUpdates();
+      }
+      LOGGER.info("restored {} groups from snapshot file {} written at {}",
+          data.groups().size(), snapshotFile, Instant.ofEpochMilli(data.timestamp()));
+      return data.timestamp();
+    } catch (Exception e) {
+      LOGGER.warn("failed to restore snapshot file {}", snapshotFile, e);
+      return -1L;
+    }
+  }
+
+  private static Thread newLoaderThread(Runnable r) {
+    Thread t = new Thread(r, "GroupService-loader");
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static Thread newSnapshotThread(Runnable r) {
+    Thread t = new Thread(r, "GroupService-snapshot");
+    t.setDaemon(true);
+    return t;
+  }
+
+  /**
+   * Call the loader. If a timeout is set, then the loader will be called on a separate
+   * thread and interrupted if it does not complete in time.
+   */
+  private List<ServerGroup> load(Loader loader, Duration timeout) throws Exception {
+    if (timeout == null) {
+      return loader.call();
+    }
+    Future<List<ServerGroup>> future = timeoutExecutor.submit(loader);
+    try {
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new TimeoutException("loader did not complete within " + timeout);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw (cause instanceof Exception) ? (Exception) cause : e;
+    }
+  }
+
+  /**
+   * Compute the delay before the next refresh after a failure. The delay grows exponentially
+   * with the number of consecutive failures starting from the base delay up to the max. A
+   * random jitter of up to half the delay is subtracted so that a set of nodes that failed at
+   * the same time will not all retry at once.
+   */
+  static long backoffDelay(long baseMillis, long maxMillis, int failures, double random) {
+    int shift = Math.min(Math.max(failures - 1, 0), 30);
+    long delay = Math.min(maxMillis, baseMillis << shift);
+    return delay - (long) (delay * 0.5 * random);
+  }
+
+  /**
+   * Compute the delay before the next refresh after a success. A random jitter based on the
+   * configured fraction is subtracted from the frequency to avoid all nodes polling the
+   * upstream services at the same time.
+   */
+  static long refreshDelay(long frequencyMillis, double jitter, double random) {
+    return frequencyMillis - (long) (frequencyMillis * jitter * random);
+  }
+
+  private void invokeListener(GroupListener listener, GroupSnapshot s, GroupDelta delta) {
+    try {
+      listener.onUpdate(s, delta);
+    } catch (Exception e) {
+      LOGGER.warn("failed to update a listener", e);
+    }
+  }
+
+  /**
+   * Update that is queued for the listeners. The set of listeners is captured when it is
+   * queued, so a listener that is added later will only see the updates after its initial
+   * call.
+   */
+  private static final class Update {
+
+    private final GroupSnapshot snapshot;
+    private final GroupDelta delta;
+    private final List<GroupListener> listeners;
+
+    Update(GroupSnapshot snapshot, GroupDelta delta, Collection<GroupListener> listeners) {
+      this.snapshot = snapshot;
+      this.delta = delta;
+      this.listeners = new ArrayList<>(listeners);
+    }
+  }
+
+  /**
+   * Manages the refreshes for a loader. Each refresh is scheduled as a single run so the
+   * delay can be adjusted based on the outcome. The future will be completed after the
+   * first successful load.
+   */
+  private final class RefreshTask {
+
+    private final String name;
+    private final Loader loader;
+    private final Duration frequency;
+    private final Duration timeout;
+    private final CompletableFuture<Void> firstLoad = new CompletableFuture<>();
+
+    private int failures;
+    private boolean running;
+    private boolean pending;
+    private ScheduledFuture<?> next;
+    private boolean nextImmediate;
+    private long generation;
+
+    RefreshTask(String name, Loader loader) {
+      this.name = name;
+      this.loader = loader;
+      this.frequency = loaderFrequencies.getOrDefault(name, GroupService.this.frequency);
+      this.timeout = loaderTimeouts.get(name);
+    }
+
+    /**
+     * Schedule the next refresh. Must be called while holding the lock. The generation is
+     * used to ignore a previously scheduled run that could not be cancelled in time.
+     */
+    private void schedule(long delayMillis) {
+      Scheduler.Options options = new Scheduler.Options()
+          .withInitialDelay(Duration.ofMillis(delayMillis))
+          .withFrequency(Scheduler.Policy.RUN_ONCE, Duration.ZERO);
+      final long gen = ++generation;
+      next = scheduler.schedule(options, () -> run(gen));
+      nextImmediate = delayMillis == 0L;
+    }
+
+    synchronized void start() {
+      schedule(0L);
+    }
+
+    /**
+     * Request a refresh as soon as possible. If one is already in progress or about to
+     * start, then the requests will be coalesced and there will be at most one additional
+     * refresh after the current one completes.
+     */
+    synchronized void refreshNow() {
+      if (running) {
+        pending = true;
+      } else if (next != null && !nextImmediate && next.cancel(false)) {
+        schedule(0L);
+      }
+    }
+
+    private void run(long gen) {
+      synchronized (this) {
+        if (gen != generation || running) {
+          return;
+        }
+        running = true;
+        pending = false;
+        next = null;
+      }
+
+      boolean success = refreshOnce(name, loader, timeout);
+
+      synchronized (this) {
+        running = false;
+        if (!lastUpdateTimes.containsKey(name)) {
+          // Service was stopped
+          firstLoad.cancel(false);
+          return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay;
+        if (success) {
+          failures = 0;
+          firstLoad.complete(null);
+          delay = refreshDelay(frequency.toMillis(), jitter, random.nextDouble());
+        } else {
+          ++failures;
+          if (!firstLoad.isDone()) {
+            LOGGER.warn("waiting for first successful load of {} groups", name);
+          }
+          long base = Math.min(frequency.toMillis(), 1000L);
+          long max = Math.max(base, (maxBackoff == null ? frequency : maxBackoff).toMillis());
+          delay = backoffDelay(base, max, failures, random.nextDouble());
+        }
+        schedule(pending ? 0L : delay);
+      }
+    }
+  }
+
   @Override protected void startImpl() throws Exception {
     final Clock clock = registry.clock();
 
+    // If a snapshot can be restored, then the service can start immediately and refresh
+    // in the background. The age of the data will be based on when it was written.
+    final long restoredTime = restoreSnapshot();
+    final long initialTime = restoredTime < 0L ? clock.wallTime() : restoredTime;
+
+    Map<String, CompletableFuture<Void>> requiredLoads = new LinkedHashMap<>();
     for (Map.Entry<String, Loader> entry : loaders.entrySet()) {
       final String loaderName = entry.getKey();
       final Loader loader = entry.getValue();
@@ -107,49 +617,256 @@ public class GroupService extends AbstractService {
       AtomicLong lastUpdateTime = PolledMeter.using(registry)
           .withName("iep.groups.dataAge")
           .withTag("id", loaderName)
-          .monitorValue(new AtomicLong(clock.wallTime()), Functions.age(clock));
+          .monitorValue(new AtomicLong(initialTime), Functions.age(clock));
       lastUpdateTimes.put(loaderName, lastUpdateTime);
 
-      // Block startup until we have loaded the data at least once
-      final long retryDelay = Math.min(frequency.toMillis(), 1000);
-      while (!refreshOnce(loaderName, loader)) {
-        LOGGER.warn("waiting for first successful load of {} groups", loaderName);
-        Thread.sleep(retryDelay);
+      // Load the data for all loaders in parallel so that startup time is based on the
+      // slowest loader rather than the sum and one that is down does not stall the others
+      RefreshTask task = new RefreshTask(loaderName, loader);
+      tasks.put(loaderName, task);
+      if (!restored && !optionalLoaders.contains(loaderName)) {
+        requiredLoads.put(loaderName, task.firstLoad);
       }
+      task.start();
+    }
 
-      // Schedule for future updates
-      Scheduler.Options options = new Scheduler.Options()
-          .withInitialDelay(frequency)
-          .withFrequency(Scheduler.Policy.FIXED_DELAY, frequency);
-      scheduler.schedule(options, () -> refreshOnce(loaderName, loader));
+    // Block startup until the required loaders have loaded the data at least once
+    CompletableFuture<Void> all = CompletableFuture.allOf(
+        requiredLoads.values().toArray(new CompletableFuture[0]));
+    try {
+      if (startupTimeout == null) {
+        all.get();
+      } else {
+        all.get(startupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    } catch (TimeoutException e) {
+      List<String> pending = new ArrayList<>();
+      requiredLoads.forEach((name, future) -> {
+        if (!future.isDone()) {
+          pending.add(name);
+        }
+      });
+      stopImpl();
+      throw new TimeoutException("timed out after " + startupTimeout
+          + " waiting for first successful load of " + pending);
+    } catch (InterruptedException e) {
+      stopImpl();
+      throw e;
     }
   }
 
   @Override protected void stopImpl() throws Exception {
     scheduler.shutdown();
+    if (timeoutExecutor != null) {
+      timeoutExecutor.shutdownNow();
+    }
+    if (snapshotWriter != null) {
+      // Allow a pending write to complete so the file has the latest data
+      snapshotWriter.shutdown();
+      snapshotWriter.awaitTermination(1, TimeUnit.MINUTES);
+    }
     lastUpdateTimes.clear();
+    tasks.clear();
+    synchronized (merger) {
+      stopped = true;
+      GroupName.release(this);
+    }
+  }
+
+  /**
+   * Request that all loaders refresh as soon as possible rather than waiting for the next
+   * scheduled refresh. Concurrent requests are coalesced so that there will be at most one
+   * additional refresh for each loader. This method does not wait for the refresh.
+   */
+  public void refresh() {
+    tasks.values().forEach(RefreshTask::refreshNow);
+  }
+
+  /**
+   * Request that a given loader refresh as soon as possible. See {@link #refresh()} for
+   * more details.
+   */
+  public void refresh(String loaderName) {
+    RefreshTask task = tasks.get(loaderName);
+    if (task != null) {
+      task.refreshNow();
+    }
   }
 
   /**
    * Return the current set of server groups merged from all loaders.
    */
   public List<ServerGroup> getGroups() {
-    List<ServerGroup> groups = merged;
-    if (groups == null) {
-      groups = new ArrayList<>();
-
-      // Merge in the order for the keys of the loader
-      for (String k : loaders.keySet()) {
-        List<ServerGroup> otherGroups = cachedData.get(k);
-        if (otherGroups != null && !otherGroups.isEmpty()) {
-          groups = ServerGroup.merge(groups, otherGroups);
-        }
+    return getSnapshot().getGroups();
+  }
+
+  /**
+   * Return an indexed snapshot of the current set of server groups merged from all loaders.
+   * Use this instead of scanning {@link #getGroups()} when looking up the groups for an app,
+   * cluster, or instance.
+   */
+  public GroupSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Return a new query over the current snapshot of server groups. See {@link GroupQuery}
+   * for more details.
+   */
+  public GroupQuery query() {
+    return snapshot.query();
+  }
+
+  /**
+   * Add a listener that will get invoked once when added and then each time a refresh
+   * results in a change to the merged set of server groups. When invoked for the
+   * initialization, the delta will have all groups of the current snapshot as added.
+   * The initial call is made before this method returns unless the listeners are being
+   * invoked for an update on another thread, in which case that thread will make the
+   * initial call in order with the updates.
+   */
+  public void addListener(GroupListener listener) {
+    boolean dispatch;
+    synchronized (merger) {
+      listeners.add(listener);
+      GroupSnapshot s = snapshot;
+      GroupDelta.Builder builder = new GroupDelta.Builder();
+      for (ServerGroup group : s.getGroups()) {
+        builder.diff(null, group);
       }
-      groups = Collections.unmodifiableList(groups);
+      Update update = new Update(s, builder.build(), Collections.singleton(listener));
+      dispatch = enqueueUpdate(update);
+    }
+    if (dispatch) {
+      dispatchUpdates();
+    }
+  }
+
+  /**
+   * Remove the listener so it will no longer get invoked.
+   */
+  public void removeListener(GroupListener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Additional options for the group service. */
+  public static final class Options {
+
+    private boolean compactInstances = false;
+    private Duration startupTimeout = null;
+    private Set<String> optionalLoaders = Collections.emptySet();
+    private Path snapshotFile = null;
+    private Duration restoredSnapshotTimeout = Duration.ofMinutes(5);
+    private Map<String, Duration> loaderFrequencies = new HashMap<>();
+    private Map<String, Duration> loaderTimeouts = new HashMap<>();
+    private Duration maxBackoff = null;
+    private double jitter = 0.1;
+
+    /** Create a new instance with the default settings. */
+    public Options() {
+    }
+
+    /**
+     * If true, then the merged server groups will use a compact representation for the
+     * instances. See {@link ServerGroup#toCompact()} for more details. This can reduce the
+     * memory use and GC overhead significantly if the full set of groups is kept, but
+     * accessing the instances will be more expensive. Default is false.
+     */
+    public Options withCompactInstances(boolean enabled) {
+      compactInstances = enabled;
+      return this;
+    }
+
+    /**
+     * Maximum amount of time to wait for the first successful load of the required loaders
+     * when starting the service. If the deadline is exceeded, then the service will fail to
+     * start. Default is null meaning it will wait until the data has been loaded.
+     */
+    public Options withStartupTimeout(Duration timeout) {
+      startupTimeout = timeout;
+      return this;
+    }
 
-      // Keep a copy so it can be reused if there haven't been any updates
-      merged = groups;
+    /**
+     * Set of loader names that are optional for startup. The service can transition to
+     * running before these loaders have been loaded successfully. They will keep trying in
+     * the background and the data will be merged in once available. By default, all loaders
+     * are required.
+     */
+    public Options withOptionalLoaders(Set<String> names) {
+      optionalLoaders = new HashSet<>(names);
+      return this;
+    }
+
+    /**
+     * Local file used to persist the merged set of server groups. Each time the data
+     * changes, the snapshot will be written to the file. On startup, if the file is present
+     * and valid, then the snapshot will be used immediately and the service will not wait
+     * for the loaders. The restored snapshot will be replaced once all required loaders
+     * have been refreshed successfully. The file is written in the background, so it may
+     * lag slightly behind the data being served. Default is null meaning no file will be
+     * used.
+     */
+    public Options withSnapshotFile(Path file) {
+      snapshotFile = file;
+      return this;
+    }
+
+    /**
+     * Maximum amount of time to keep serving a snapshot restored from the file while
+     * waiting for the required loaders. Once exceeded, the restored snapshot will be
+     * replaced with the data from the loaders that have been refreshed successfully so that
+     * a loader that keeps failing does not cause stale data to be served indefinitely.
+     * Default is 5 minutes.
+     */
+    public Options withRestoredSnapshotTimeout(Duration timeout) {
+      restoredSnapshotTimeout = timeout;
+      return this;
+    }
+
+    /**
+     * Set the refresh frequency for a given loader. This can be used if some loaders are
+     * more expensive than others or need to be refreshed more often. Default is to use the
+     * frequency passed to the service.
+     */
+    public Options withLoaderFrequency(String name, Duration frequency) {
+      loaderFrequencies.put(name, frequency);
+      return this;
+    }
+
+    /**
+     * Set the maximum amount of time a refresh for a given loader can take. If exceeded,
+     * then the loader will be interrupted and the refresh treated as a failure. Default is
+     * no timeout.
+     */
+    public Options withLoaderTimeout(String name, Duration timeout) {
+      loaderTimeouts.put(name, timeout);
+      return this;
+    }
+
+    /**
+     * Maximum delay between retries when a loader is failing. The delay starts at the
+     * smaller of the frequency and one second and doubles for each consecutive failure up
+     * to this value. After a successful refresh, the loader goes back to the normal
+     * frequency. Default is null meaning the frequency of the loader will be used.
+     */
+    public Options withMaxBackoff(Duration max) {
+      maxBackoff = max;
+      return this;
+    }
+
+    /**
+     * Fraction of the frequency to use for randomizing the delay between refreshes. This
+     * spreads out the requests to the upstream services from a fleet of nodes that were
+     * started at the same time. The value must be in the range {@code [0.0, 1.0]}. Default
+     * is 0.1.
+     */
+    public Options withJitter(double fraction) {
+      if (fraction < 0.0 || fraction > 1.0) {
+        throw new IllegalArgumentException("jitter must be in the range [0.0, 1.0]: " + fraction);
+      }
+      jitter = fraction;
+      return this;
     }
-    return groups;
   }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of a merged set of server groups. The indexes are computed once when
+ * the snapshot is created so that lookups for a given app, cluster, or instance do not
+ * need to scan the full list of groups.
+ */
+public final class GroupSnapshot {
+
+  private static final GroupSnapshot EMPTY = new GroupSnapshot(Collections.emptyList());
+
+  /** Return an empty snapshot. */
+  public static GroupSnapshot empty() {
+    return EMPTY;
+  }
+
+  /** Create a new snapshot for the provided list of server groups. */
+  public static GroupSnapshot create(Collection<ServerGroup> groups) {
+    return groups.isEmpty() ? EMPTY : new GroupSnapshot(groups);
+  }
+
+  private final List<ServerGroup> groups;
+
+  private final Map<String, ServerGroup> byId;
+  private final Map<String, List<ServerGroup>> byApp;
+  private final Map<String, List<ServerGroup>> byCluster;
+  private final Map<String, List<ServerGroup>> byStack;
+
+  private final Map<String, ServerGroup> groupsByNode;
+  private final Map<String, ServerGroup> groupsByAddress;
+
+  // Only used for groups with a regular list of instances. For a compact list, the instance
+  // is located in the group when accessed so that the full objects are not kept in memory.
+  private final Map<String, Instance> instancesByNode;
+  private final Map<String, Instance> instancesByAddress;
+
+  // Indexes used for queries
+  private final GroupIndex queryIndex;
+
+  private GroupSnapshot(Collection<ServerGroup> groups) {
+    this.groups = Collections.unmodifiableList(new ArrayList<>(groups));
+
+    byId = new HashMap<>();
+    byApp = new HashMap<>();
+    byCluster = new HashMap<>();
+    byStack = new HashMap<>();
+    groupsByNode = new HashMap<>();
+    groupsByAddress = new HashMap<>();
+    instancesByNode = new HashMap<>();
+    instancesByAddress = new HashMap<>();
+
+    for (ServerGroup group : this.groups) {
+      byId.put(group.getId(), group);
+      add(byApp, group.getApp(), group);
+      add(byCluster, group.getCluster(), group);
+      add(byStack, group.getStack(), group);
+      List<Instance> instances = group.getInstances();
+      if (instances instanceof CompactInstanceList) {
+        CompactInstanceList compact = (CompactInstanceList) instances;
+        for (int i = 0; i < compact.size(); ++i) {
+          add(group, compact.node(i), compact.privateIpAddress(i), compact.ipv6Address(i));
+        }
+      } else {
+        for (Instance instance : instances) {
+          add(group, instance.getNode(), instance.getPrivateIpAddress(),
+              instance.getIpv6Address());
+          instancesByNode.put(instance.getNode(), instance);
+          if (instance.getPrivateIpAddress() != null) {
+            instancesByAddress.put(instance.getPrivateIpAddress(), instance);
+          }
+          if (instance.getIpv6Address() != null) {
+            instancesByAddress.put(instance.getIpv6Address(), instance);
+          }
+        }
+      }
+    }
+
+    freeze(byApp);
+    freeze(byCluster);
+    freeze(byStack);
+
+    // Created with the snapshot on the refresh thread so the first query after a refresh
+    // does not need to pay the cost
+    queryIndex = new GroupIndex(this.groups);
+  }
+
+  private void add(ServerGroup group, String node, String privateIp, String ipv6) {
+    groupsByNode.put(node, group);
+    if (privateIp != null) {
+      groupsByAddress.put(privateIp, group);
+    }
+    if (ipv6 != null) {
+      groupsByAddress.put(ipv6, group);
+    }
+  }
+
+  private static void add(Map<String, List<ServerGroup>> index, String key, ServerGroup group) {
+    if (key != null) {
+      index.computeIfAbsent(key, k -> new ArrayList<>()).add(group);
+    }
+  }
+
+  private static void freeze(Map<String, List<ServerGroup>> index) {
+    index.replaceAll((k, vs) -> Collections.unmodifiableList(vs));
+  }
+
+  private static List<ServerGroup> lookup(Map<String, List<ServerGroup>> index, String key) {
+    List<ServerGroup> vs = index.get(key);
+    return vs == null ? Collections.emptyList() : vs;
+  }
+
+  /** Return the full list of server groups in the snapshot. */
+  public List<ServerGroup> getGroups() {
+    return groups;
+  }
+
+  /** Return the number of server groups in the snapshot. */
+  public int size() {
+    return groups.size();
+  }
+
+  /**
+   * Return the server group with the given id, {@code platform.group}, or {@code null} if
+   * there is no such group.
+   */
+  public ServerGroup findById(String id) {
+    return byId.get(id);
+  }
+
+  /** Return the server groups for an app across all platforms. */
+  public List<ServerGroup> findByApp(String app) {
+    return lookup(byApp, app);
+  }
+
+  /** Return the server groups for a cluster across all platforms. */
+  public List<ServerGroup> findByCluster(String cluster) {
+    return lookup(byCluster, cluster);
+  }
+
+  /** Return the server groups that have the given stack. */
+  public List<ServerGroup> findByStack(String stack) {
+    return lookup(byStack, stack);
+  }
+
+  /**
+   * Return a new query for selecting groups and instances from this snapshot. See
+   * {@link GroupQuery} for more details.
+   */
+  public GroupQuery query() {
+    return new GroupQuery(queryIndex);
+  }
+
+  /**
+   * Return the instance with a given node id or IP address, or {@code null} if there is
+   * no such instance. The IP address can be either the private IPv4 or the IPv6 address.
+   */
+  public Instance findInstance(String nodeOrAddress) {
+    Instance instance = instancesByNode.get(nodeOrAddress);
+    if (instance == null) {
+      instance = instancesByAddress.get(nodeOrAddress);
+    }
+    if (instance == null) {
+      ServerGroup group = findGroupForInstance(nodeOrAddress);
+      if (group != null && group.getInstances() instanceof CompactInstanceList) {
+        CompactInstanceList compact = (CompactInstanceList) group.getInstances();
+        int i = compact.indexOf(nodeOrAddress);
+        instance = (i < 0) ? null : compact.get(i);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Return the server group containing the instance with a given node id or IP address, or
+   * {@code null} if there is no such instance.
+   */
+  public ServerGroup findGroupForInstance(String nodeOrAddress) {
+    ServerGroup group = groupsByNode.get(nodeOrAddress);
+    return group == null ? groupsByAddress.get(nodeOrAddress) : group;
+  }
+}
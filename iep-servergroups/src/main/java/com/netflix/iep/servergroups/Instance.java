@@ -63,6 +63,11 @@ public final class Instance {
     return privateIpAddress;
   }
 
+  /** Return the IPv6 address for the instance. */
+  public String getIpv6Address() {
+    return ipv6Address;
+  }
+
   /** Return the VPC ID for the instance. */
   public String getVpcId() {
     return vpcId;
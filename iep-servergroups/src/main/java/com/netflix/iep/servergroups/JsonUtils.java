@@ -27,8 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.InputStream;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
 
@@ -41,6 +40,10 @@ final class JsonUtils {
 
   private static final JsonFactory FACTORY = JsonFactory.builder().build();
 
+  // The default buffer size for GZIPInputStream is 512 bytes, which results in a lot of
+  // small reads from the underlying stream for large payloads.
+  private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
   private static boolean isEndOfArrayOrInput(JsonParser jp) {
     JsonToken t = jp.currentToken();
     return t == null || t == JsonToken.END_ARRAY;
@@ -62,36 +65,37 @@ final class JsonUtils {
     }
   }
 
-  /** Create a list from the current array value. */
-  static <T> List<T> toList(JsonParser jp, IOFunction<T> f) throws IOException {
-    if (jp.currentToken() == JsonToken.VALUE_NULL) {
-      return Collections.emptyList();
-    }
-    List<T> vs = new ArrayList<>();
-    forEach(jp, p -> vs.add(f.apply(p)));
-    return vs;
-  }
-
-  /** Apply the consumer function for each element in the array. */
-  static <T> void forEach(JsonParser jp, IOConsumer f) throws IOException {
+  /**
+   * Apply the decoder for each element in the array. The state is passed through to the
+   * decoder so that it can be a non-capturing function that is reused across all arrays,
+   * rather than allocating a new lambda for each array that is decoded.
+   */
+  static <S> void forEach(JsonParser jp, S state, ElementDecoder<S> f) throws IOException {
     expect(jp, JsonToken.START_ARRAY);
     jp.nextToken();
     while (!isEndOfArrayOrInput(jp)) {
-      f.apply(jp);
+      f.apply(state, jp);
     }
     if (jp.currentToken() == JsonToken.END_ARRAY) {
       jp.nextToken();
     }
   }
 
-  /** Apply the consumer function for each field in the object. */
-  static <T> void forEachField(JsonParser jp, IOBiConsumer f) throws IOException {
+  /**
+   * Apply the decoder for each field in the object. The state is passed through to the
+   * decoder so that it can be a non-capturing function that is reused across all objects,
+   * rather than allocating a new lambda for each object that is decoded. The field names
+   * are canonicalized by the symbol table of the parser, so the name passed to the decoder
+   * is a shared instance and matching it does not require any allocation.
+   */
+  static <S> void forEachField(JsonParser jp, S state, FieldDecoder<S> f) throws IOException {
     expect(jp, JsonToken.START_OBJECT);
     jp.nextToken();
     while (!isEndOfObjectOrInput(jp)) {
       expect(jp, JsonToken.PROPERTY_NAME);
+      String field = jp.currentName();
       jp.nextToken();
-      f.apply(jp.currentName(), jp);
+      f.apply(state, field, jp);
     }
     if (jp.currentToken() == JsonToken.END_OBJECT) {
       jp.nextToken();
@@ -109,6 +113,20 @@ final class JsonUtils {
     return v;
   }
 
+  /**
+   * Extract a string value and canonicalize it using the pool. This should be used for
+   * values with a low cardinality that are repeated many times in the response.
+   */
+  static String stringValue(JsonParser jp, StringPool pool) throws IOException {
+    if (jp.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    expect(jp, JsonToken.VALUE_STRING);
+    String v = pool.intern(jp.getStringCharacters(), jp.getStringOffset(), jp.getStringLength());
+    jp.nextToken();
+    return v;
+  }
+
   /** Extract an integer value. */
   static int intValue(JsonParser jp) throws IOException {
     expect(jp, JsonToken.VALUE_NUMBER_INT);
@@ -160,30 +178,31 @@ final class JsonUtils {
     T apply(JsonParser input) throws IOException;
   }
 
-  /** Consumer that handles current input of the parser. */
-  interface IOConsumer {
-    void apply(JsonParser input) throws IOException;
+  /** Decoder for an element of an array that updates the provided state. */
+  interface ElementDecoder<S> {
+    void apply(S state, JsonParser jp) throws IOException;
   }
 
-  /** Consumer that handles current input of the parser for a given field. */
-  interface IOBiConsumer {
-    void apply(String field, JsonParser jp) throws IOException;
+  /** Decoder for the value of a field in an object that updates the provided state. */
+  interface FieldDecoder<S> {
+    void apply(S state, String field, JsonParser jp) throws IOException;
   }
 
   /**
    * Helper for parsing a JSON response and ensuring the resources are properly cleaned
    * up. After the {@code JsonParser} is created, then provided function will be used to
-   * process the data from the parser.
+   * process the data from the parser. The HTTP client buffers the full entity, if the data
+   * is compressed, then it will be inflated inline while parsing to avoid allocating an
+   * intermediate byte array of the full decompressed payload.
    */
   static List<ServerGroup> parseResponse(
       HttpResponse response, IOFunction<List<ServerGroup>> function) throws IOException {
     String enc = response.header("Content-Encoding");
     if (enc != null && enc.contains("gzip")) {
-      // Decompress while parsing to avoid allocating an intermediate byte array of the
-      // full decompressed payload.
       try (
-          GZIPInputStream gzin = new GZIPInputStream(new ByteArrayInputStream(response.entity()));
-          JsonParser jp = FACTORY.createParser(ObjectReadContext.empty(), gzin)
+          InputStream in = new GZIPInputStream(
+              new ByteArrayInputStream(response.entity()), INFLATE_BUFFER_SIZE);
+          JsonParser jp = FACTORY.createParser(ObjectReadContext.empty(), in)
       ) {
         return function.apply(jp);
       }
@@ -193,4 +212,27 @@ final class JsonUtils {
       }
     }
   }
+
+  /**
+   * Return the entity for the response. If the data is compressed, then it will be inflated
+   * so the result can be accessed directly, for example to decode ranges of the data with
+   * {@link #createParser(byte[], int, int)}.
+   */
+  static byte[] entity(HttpResponse response) throws IOException {
+    String enc = response.header("Content-Encoding");
+    boolean gzip = enc != null && enc.contains("gzip");
+    if (gzip) {
+      try (InputStream in = new GZIPInputStream(
+          new ByteArrayInputStream(response.entity()), INFLATE_BUFFER_SIZE)) {
+        return in.readAllBytes();
+      }
+    } else {
+      return response.entity();
+    }
+  }
+
+  /** Create a parser for a range of the data. The caller is responsible for closing it. */
+  static JsonParser createParser(byte[] data, int offset, int length) throws IOException {
+    return FACTORY.createParser(ObjectReadContext.empty(), data, offset, length);
+  }
 }
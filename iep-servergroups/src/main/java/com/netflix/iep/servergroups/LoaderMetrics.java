@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.api.patterns.PolledMeter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics for the refresh of a loader. All metrics are tagged with the id of the loader so
+ * the cost of each step can be seen separately:
+ *
+ * <ul>
+ *   <li><b>iep.groups.fetchTime:</b> time to get the response from the upstream service.</li>
+ *   <li><b>iep.groups.decodeTime:</b> time to decode the response into server groups.</li>
+ *   <li><b>iep.groups.loadTime:</b> total time for a call to the loader.</li>
+ *   <li><b>iep.groups.mergeTime:</b> time to merge the loader results and publish the
+ *       snapshot.</li>
+ *   <li><b>iep.groups.payloadSize:</b> size in bytes of the last response. The encoding tag
+ *       indicates if it is the compressed or uncompressed size.</li>
+ *   <li><b>iep.groups.groups:</b> number of groups from the last load.</li>
+ *   <li><b>iep.groups.instances:</b> number of instances from the last load.</li>
+ *   <li><b>iep.groups.decodeWarnings:</b> number of problems found while decoding, such
+ *       as instances that were dropped. The reason tag indicates the type of problem.</li>
+ * </ul>
+ *
+ * <p>The sizes are polled gauges so they keep reporting the last value. The payload size
+ * is only updated when a response is decoded, and a gauge that is set directly would
+ * expire if the data does not change for a while. The gauges are registered when first
+ * recorded, the loader and {@link GroupService} each have an instance for the same id and
+ * record different subsets of the metrics.
+ *
+ * <p>The id must be unique for a given loader. If two loaders use the same id, then the
+ * values for the gauges will get mixed together. When used with {@link GroupService}, the
+ * id for the loader should match the name it is registered with so the load and merge
+ * times can be correlated with the fetch and decode times.
+ */
+final class LoaderMetrics {
+
+  private static final LoaderMetrics NOOP = new LoaderMetrics(new NoopRegistry(), "noop");
+
+  /** Return an instance that does not record any metrics. */
+  static LoaderMetrics noop() {
+    return NOOP;
+  }
+
+  /** Return the total number of instances for a list of groups. */
+  static int instanceCount(List<ServerGroup> groups) {
+    int n = 0;
+    for (ServerGroup group : groups) {
+      n += group.getInstances().size();
+    }
+    return n;
+  }
+
+  private final Registry registry;
+  private final Clock clock;
+  private final Id decodeWarnings;
+
+  private final Timer fetchTime;
+  private final Timer decodeTime;
+  private final Timer loadTime;
+  private final Timer mergeTime;
+
+  private final Id compressedSize;
+  private final Id uncompressedSize;
+  private final Id groups;
+  private final Id instances;
+  private final ConcurrentHashMap<Id, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new instance.
+   *
+   * @param registry
+   *     Registry to use for recording the metrics.
+   * @param id
+   *     Id for the loader that will be used as a tag on all of the metrics.
+   */
+  LoaderMetrics(Registry registry, String id) {
+    this.registry = registry;
+    this.clock = registry.clock();
+    this.decodeWarnings = registry.createId("iep.groups.decodeWarnings", "id", id);
+
+    this.fetchTime = registry.timer("iep.groups.fetchTime", "id", id);
+    this.decodeTime = registry.timer("iep.groups.decodeTime", "id", id);
+    this.loadTime = registry.timer("iep.groups.loadTime", "id", id);
+    this.mergeTime = registry.timer("iep.groups.mergeTime", "id", id);
+
+    this.compressedSize = registry.createId(
+        "iep.groups.payloadSize", "id", id, "encoding", "compressed");
+    this.uncompressedSize = registry.createId(
+        "iep.groups.payloadSize", "id", id, "encoding", "uncompressed");
+    this.groups = registry.createId("iep.groups.groups", "id", id);
+    this.instances = registry.createId("iep.groups.instances", "id", id);
+  }
+
+  private void set(Id id, long value) {
+    gauges.computeIfAbsent(id, k -> PolledMeter.using(registry)
+        .withId(k)
+        .monitorValue(new AtomicLong())).set(value);
+  }
+
+  /** Return the start time to use when recording the duration for a step. */
+  long start() {
+    return clock.monotonicTime();
+  }
+
+  private void record(Timer timer, long start) {
+    timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /** Record the time to fetch the data from the upstream service. */
+  void recordFetch(long start) {
+    record(fetchTime, start);
+  }
+
+  /** Record the time to decode the data. */
+  void recordDecode(long start) {
+    record(decodeTime, start);
+  }
+
+  /** Record the time for the full call to the loader. */
+  void recordLoad(long start) {
+    record(loadTime, start);
+  }
+
+  /** Record the time to merge the results of the loader. */
+  void recordMerge(long start) {
+    record(mergeTime, start);
+  }
+
+  /**
+   * Record the size of the response. If the response was not compressed, then both sizes
+   * will be the same.
+   */
+  void recordPayloadSize(long compressed, long uncompressed) {
+    set(compressedSize, compressed);
+    set(uncompressedSize, uncompressed);
+  }
+
+  /** Record the size of the result from the loader. */
+  void recordGroups(List<ServerGroup> result) {
+    set(groups, result.size());
+    set(instances, instanceCount(result));
+  }
+
+  /** Increment the counter for a problem found while decoding. */
+  void decodeWarning(String reason) {
+    registry.counter(decodeWarnings.withTag("reason", reason)).increment();
+  }
+}
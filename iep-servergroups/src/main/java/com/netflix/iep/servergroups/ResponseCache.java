@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
+import com.netflix.spectator.ipc.http.HttpResponse;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of the last successful response for a loader so that the payload only needs
+ * to be decoded if the data has changed. If the server provides an {@code ETag} or
+ * {@code Last-Modified} header, then subsequent requests will be conditional and a 304
+ * response will reuse the previous result. Otherwise, a digest of the raw body is used to
+ * detect that the content is identical to the previous response.
+ */
+final class ResponseCache {
+
+  private final LoaderMetrics metrics;
+
+  private String etag;
+  private String lastModified;
+  private byte[] digest;
+  private List<ServerGroup> groups;
+
+  /** Create a new instance that does not record any metrics. */
+  ResponseCache() {
+    this(LoaderMetrics.noop());
+  }
+
+  /** Create a new instance that records the decode time and payload size to the metrics. */
+  ResponseCache(LoaderMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /** Add the conditional request headers based on the last successful response. */
+  synchronized HttpRequestBuilder addHeaders(HttpRequestBuilder builder) {
+    if (groups != null) {
+      if (etag != null) {
+        builder.addHeader("If-None-Match", etag);
+      }
+      if (lastModified != null) {
+        builder.addHeader("If-Modified-Since", lastModified);
+      }
+    }
+    return builder;
+  }
+
+  /**
+   * Process the response. If the data has not changed since the last successful response,
+   * then the previous result will be returned. Otherwise, the function will be used to
+   * decode the response.
+   */
+  synchronized List<ServerGroup> process(
+      HttpResponse response, JsonUtils.IOFunction<List<ServerGroup>> function) throws IOException {
+    return processResponse(response, r -> JsonUtils.parseResponse(r, jp -> {
+      List<ServerGroup> result = function.apply(jp);
+      long size = r.entity().length;
+      long offset = jp.currentLocation().getByteOffset();
+      metrics.recordPayloadSize(size, offset < 0L ? size : offset);
+      return result;
+    }));
+  }
+
+  /**
+   * Process the response. This is the same as
+   * {@link #process(HttpResponse, JsonUtils.IOFunction)} except that the function is
+   * responsible for decoding the response entity. It can be used if the decoding needs
+   * access to the raw data rather than a single parser. The function is responsible for
+   * recording the payload size.
+   */
+  synchronized List<ServerGroup> processResponse(
+      HttpResponse response, ResponseFunction function) throws IOException {
+    if (response.status() == 304 && groups != null) {
+      return groups;
+    }
+
+    if (response.status() != 200) {
+      throw new IOException("request failed with status " + response.status());
+    }
+
+    byte[] d = sha256(response.entity());
+    if (groups == null || !Arrays.equals(digest, d)) {
+      long start = metrics.start();
+      groups = function.apply(response);
+      metrics.recordDecode(start);
+      digest = d;
+    }
+    etag = response.header("ETag");
+    lastModified = response.header("Last-Modified");
+    return groups;
+  }
+
+  private static byte[] sha256(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required to be supported by all Java implementations
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Function that decodes the server groups from a response. */
+  interface ResponseFunction {
+    List<ServerGroup> apply(HttpResponse response) throws IOException;
+  }
+}
@@ -24,11 +24,11 @@ import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Immutable object representing a server group.
@@ -41,13 +41,7 @@ public final class ServerGroup {
   private final String id;
   private final String platform;
 
-  private final String app;
-  private final String cluster;
-  private final String group;
-  private final String stack;
-  private final String detail;
-  private final String shard1;
-  private final String shard2;
+  private final GroupName name;
 
   private final int minSize;
   private final int maxSize;
@@ -59,21 +53,25 @@ public final class ServerGroup {
     id = builder.platform + "." + builder.group;
     platform = builder.platform;
 
-    com.netflix.spectator.ipc.ServerGroup sg =
-        com.netflix.spectator.ipc.ServerGroup.parse(builder.group);
-    app = sg.app();
-    cluster = sg.cluster();
-    group = builder.group;
-    stack = sg.stack();
-    detail = sg.detail();
-    shard1 = sg.shard1();
-    shard2 = sg.shard2();
+    name = (builder.name != null) ? builder.name : GroupName.parse(builder.group);
 
     minSize = builder.minSize;
     maxSize = builder.maxSize;
     desiredSize = builder.desiredSize;
 
-    instances = sort(builder.instances);
+    instances = (builder.sortedInstances != null)
+        ? Collections.unmodifiableList(builder.sortedInstances)
+        : sort(builder.instances);
+  }
+
+  private ServerGroup(ServerGroup base, List<Instance> instances) {
+    id = base.id;
+    platform = base.platform;
+    name = base.name;
+    minSize = base.minSize;
+    maxSize = base.maxSize;
+    desiredSize = base.desiredSize;
+    this.instances = instances;
   }
 
   private static List<Instance> sort(List<Instance> instances) {
@@ -97,7 +95,7 @@ public final class ServerGroup {
    * Frigga parsing rules.
    */
   public String getApp() {
-    return app;
+    return name.app();
   }
 
   /**
@@ -105,12 +103,17 @@ public final class ServerGroup {
    * Frigga parsing rules.
    */
   public String getCluster() {
-    return cluster;
+    return name.cluster();
   }
 
   /** Return the group name, for the server group. */
   public String getGroup() {
-    return group;
+    return name.group();
+  }
+
+  /** Return the parsed group name. */
+  GroupName name() {
+    return name;
   }
 
   /**
@@ -118,7 +121,7 @@ public final class ServerGroup {
    * Frigga parsing rules.
    */
   public String getStack() {
-    return stack;
+    return name.stack();
   }
 
   /**
@@ -126,7 +129,7 @@ public final class ServerGroup {
    * Frigga parsing rules.
    */
   public String getDetail() {
-    return detail;
+    return name.detail();
   }
 
   /**
@@ -134,7 +137,7 @@ public final class ServerGroup {
    * on the ShardingNamingConvention in Frigga.
    */
   public String getShard1() {
-    return shard1;
+    return name.shard1();
   }
 
   /**
@@ -142,7 +145,7 @@ public final class ServerGroup {
    * on the ShardingNamingConvention in Frigga.
    */
   public String getShard2() {
-    return shard2;
+    return name.shard2();
   }
 
   /** Return the minimum size for the group. */
@@ -165,6 +168,18 @@ public final class ServerGroup {
     return instances;
   }
 
+  /**
+   * Return an equivalent server group that uses a compact representation for the instances.
+   * The attributes are stored as arrays with the low cardinality values dictionary encoded,
+   * and the {@link Instance} objects are created when accessed. This reduces the memory
+   * overhead when keeping a large number of groups, at the cost of allocating when the
+   * instances are accessed.
+   */
+  public ServerGroup toCompact() {
+    List<Instance> compact = CompactInstanceList.create(instances);
+    return compact == instances ? this : new ServerGroup(this, compact);
+  }
+
   /**
    * Return a new server group with the attributes merged from this group and the other
    * group. Both groups must have the same id.
@@ -174,43 +189,56 @@ public final class ServerGroup {
       throw new IllegalArgumentException("merging is only supported for the same group");
     }
 
-    Map<String, Instance> otherInstances = new HashMap<>();
-    for (Instance i : other.instances) {
-      otherInstances.put(i.getNode(), i);
-    }
-
-    List<Instance> merged = new ArrayList<>(instances.size());
-
-    // Instances in this group or both groups
-    for (Instance i1 : instances) {
-      Instance i2 = otherInstances.remove(i1.getNode());
-      if (i2 != null) {
+    // Both lists are sorted by node, so they can be merged in a single pass and the
+    // result will also be sorted.
+    List<Instance> merged = new ArrayList<>(Math.max(instances.size(), other.instances.size()));
+    Iterator<Instance> it1 = instances.iterator();
+    Iterator<Instance> it2 = other.instances.iterator();
+    Instance i1 = next(it1);
+    Instance i2 = next(it2);
+    while (i1 != null && i2 != null) {
+      int cmp = i1.getNode().compareTo(i2.getNode());
+      if (cmp == 0) {
         merged.add(i1.merge(i2));
-      } else if (UNION_STATUSES.contains(i1.getStatus())) {
-        merged.add(i1);
+        i1 = next(it1);
+        i2 = next(it2);
+      } else if (cmp < 0) {
+        addIfUnion(merged, i1);
+        i1 = next(it1);
+      } else {
+        addIfUnion(merged, i2);
+        i2 = next(it2);
       }
     }
 
-    // Add instances only in the other group
-    List<Instance> onlyInOtherGroup = otherInstances.values()
-        .stream()
-        .filter(i -> UNION_STATUSES.contains(i.getStatus()))
-        .collect(Collectors.toList());
-    merged.addAll(onlyInOtherGroup);
-
-    // Sort to ensure that ordering doesn't break comparisons
-    merged.sort(Comparator.comparing(Instance::getNode));
+    // Remaining instances that are only in one of the groups
+    for (; i1 != null; i1 = next(it1)) {
+      addIfUnion(merged, i1);
+    }
+    for (; i2 != null; i2 = next(it2)) {
+      addIfUnion(merged, i2);
+    }
 
     return builder()
         .platform(platform)
-        .group(group)
+        .name(name)
         .minSize(Math.max(minSize, other.minSize))
         .maxSize(Math.max(maxSize, other.maxSize))
         .desiredSize(Math.max(desiredSize, other.desiredSize))
-        .addInstances(merged)
+        .sortedInstances(merged)
         .build();
   }
 
+  private static Instance next(Iterator<Instance> it) {
+    return it.hasNext() ? it.next() : null;
+  }
+
+  private static void addIfUnion(List<Instance> merged, Instance instance) {
+    if (UNION_STATUSES.contains(instance.getStatus())) {
+      merged.add(instance);
+    }
+  }
+
   @Override public boolean equals(Object o) {
     if (this == o) {
       return true;
@@ -224,20 +252,13 @@ public final class ServerGroup {
         desiredSize == that.desiredSize &&
         Objects.equals(id, that.id) &&
         Objects.equals(platform, that.platform) &&
-        Objects.equals(app, that.app) &&
-        Objects.equals(cluster, that.cluster) &&
-        Objects.equals(group, that.group) &&
-        Objects.equals(stack, that.stack) &&
-        Objects.equals(detail, that.detail) &&
-        Objects.equals(shard1, that.shard1) &&
-        Objects.equals(shard2, that.shard2) &&
+        Objects.equals(name, that.name) &&
         Objects.equals(instances, that.instances);
   }
 
   @Override public int hashCode() {
     return Objects.hash(
-        id, platform,
-        app, cluster, group, stack, detail, shard1, shard2,
+        id, platform, name,
         minSize, maxSize, desiredSize,
         instances);
   }
@@ -254,7 +275,19 @@ public final class ServerGroup {
   }
 
   private String nimbleId() {
-    return platform + "." + NIMBLE_PREFIX + group;
+    return platform + "." + NIMBLE_PREFIX + name.group();
+  }
+
+  /**
+   * Return the id of the group that this group can be combined with by the nimble handling
+   * in {@link #merge(Collection, Collection)}. For a regular group it is the id of the
+   * corresponding nimble group and for a nimble group it is the id of the transplant group.
+   */
+  String nimblePartnerId() {
+    String group = name.group();
+    return group.startsWith(NIMBLE_PREFIX)
+        ? platform + "." + group.substring(NIMBLE_PREFIX.length())
+        : nimbleId();
   }
 
   /**
@@ -277,11 +310,11 @@ public final class ServerGroup {
     }
     return builder()
         .platform(platform)
-        .group(NIMBLE_PREFIX + group)
+        .group(NIMBLE_PREFIX + name.group())
         .minSize(minSize)
         .maxSize(maxSize)
         .desiredSize(desiredSize)
-        .addInstances(nimbleInstances)
+        .sortedInstances(nimbleInstances)
         .build();
   }
 
@@ -321,7 +354,7 @@ public final class ServerGroup {
 
     // Groups in gs1 only or in both lists
     for (ServerGroup g1 : gs1) {
-      if (!g1.group.startsWith(NIMBLE_PREFIX)) {
+      if (!g1.getGroup().startsWith(NIMBLE_PREFIX)) {
         ServerGroup g2 = otherGroups.remove(g1.id);
         merged.add(g2 == null ? g1 : g1.merge(g2));
       }
@@ -356,10 +389,12 @@ public final class ServerGroup {
   public static class Builder {
     private String platform;
     private String group;
+    private GroupName name;
     private int minSize;
     private int maxSize;
     private int desiredSize;
     private final List<Instance> instances = new ArrayList<>();
+    private List<Instance> sortedInstances;
 
     private Builder() {
     }
@@ -373,6 +408,17 @@ public final class ServerGroup {
     /** Set the group name, for the server group. This attribute is required. */
     public Builder group(String value) {
       group = value;
+      name = null;
+      return this;
+    }
+
+    /**
+     * Set the group using the already parsed name. Used internally to avoid parsing the
+     * name again when creating a group based on an existing one.
+     */
+    Builder name(GroupName value) {
+      group = value.group();
+      name = value;
       return this;
     }
 
@@ -406,6 +452,17 @@ public final class ServerGroup {
       return this;
     }
 
+    /**
+     * Set the instances using a list that is already sorted by node. Used internally when
+     * the list is derived from existing groups to avoid copying and sorting it again. The
+     * list will be used directly, so it should not be modified after calling this method.
+     * Any instances added with the other methods will be ignored.
+     */
+    Builder sortedInstances(List<Instance> value) {
+      sortedInstances = value;
+      return this;
+    }
+
     /** Create a new server group from this builder. */
     public ServerGroup build() {
       Preconditions.checkNotNull(platform, "platform must be set");
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Helper for persisting the merged set of server groups to a local file so that it can
+ * be used to serve requests immediately after a restart. The file has a header with a
+ * magic number, format version, timestamp, and a CRC32 checksum of the payload. Strings
+ * are written once and then referenced by index, so repeated values such as the zone
+ * only take a few bytes per instance.
+ */
+final class SnapshotFile {
+
+  private static final int MAGIC = 0x49455047; // "IEPG"
+  private static final int VERSION = 1;
+
+  // Magic, version, timestamp, checksum, and payload length
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final int NULL_STRING = -1;
+  private static final int NEW_STRING = -2;
+
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  private static final Instance.Status[] STATUSES = Instance.Status.values();
+
+  private SnapshotFile() {
+  }
+
+  /** Data read from a snapshot file. */
+  static final class Data {
+    private final long timestamp;
+    private final List<ServerGroup> groups;
+
+    Data(long timestamp, List<ServerGroup> groups) {
+      this.timestamp = timestamp;
+      this.groups = groups;
+    }
+
+    /** Time in milliseconds since the epoch when the snapshot was written. */
+    long timestamp() {
+      return timestamp;
+    }
+
+    /** Set of server groups in the snapshot. */
+    List<ServerGroup> groups() {
+      return groups;
+    }
+  }
+
+  /**
+   * Write the groups to the file. The data is first written to a temporary file in the
+   * same directory and then moved into place so readers never see a partial file. The
+   * payload is streamed to the file and the header is filled in afterwards, so the
+   * encoded data does not need to be buffered in memory.
+   */
+  static void write(Path file, long timestamp, List<ServerGroup> groups) throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        // Reserve space for the header, the checksum and length are only known after
+        // the payload has been written
+        channel.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), crc));
+        encode(out, groups);
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+            .putInt(MAGIC)
+            .putInt(VERSION)
+            .putLong(timestamp)
+            .putLong(crc.getValue())
+            .putInt(out.size());
+        header.flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Read the groups from the file.
+   *
+   * @throws IOException
+   *     If the file cannot be read, has an unsupported version, is truncated, or the
+   *     checksum does not match.
+   */
+  static Data read(Path file) throws IOException {
+    try (InputStream is = new BufferedInputStream(Files.newInputStream(file));
+         DataInputStream in = new DataInputStream(is)) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("invalid snapshot file: " + file);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("unsupported snapshot version " + version + ": " + file);
+      }
+      long timestamp = in.readLong();
+      long checksum = in.readLong();
+
+      // The length is not covered by the checksum, verify it against the file size before
+      // allocating so a corrupt file cannot trigger a huge allocation
+      int length = in.readInt();
+      long available = Files.size(file) - HEADER_SIZE;
+      if (length < 0 || length > available) {
+        throw new IOException("invalid payload length " + length + " for snapshot file: "
+            + file + ", only " + available + " bytes available");
+      }
+      byte[] payload = new byte[length];
+      in.readFully(payload);
+
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if (crc.getValue() != checksum) {
+        throw new IOException("checksum mismatch for snapshot file: " + file);
+      }
+
+      try (DataInputStream pin = new DataInputStream(new ByteArrayInputStream(payload))) {
+        return new Data(timestamp, decode(pin));
+      }
+    }
+  }
+
+  private static void encode(DataOutputStream out, List<ServerGroup> groups) throws IOException {
+    Map<String, Integer> strings = new HashMap<>();
+    out.writeInt(groups.size());
+    for (ServerGroup group : groups) {
+      writeString(out, strings, group.getPlatform());
+      writeString(out, strings, group.getGroup());
+      out.writeInt(group.getMinSize());
+      out.writeInt(group.getMaxSize());
+      out.writeInt(group.getDesiredSize());
+      List<Instance> instances = group.getInstances();
+      out.writeInt(instances.size());
+      for (Instance instance : instances) {
+        out.writeUTF(instance.getNode());
+        writeString(out, strings, instance.getPrivateIpAddress());
+        writeString(out, strings, instance.getIpv6Address());
+        writeString(out, strings, instance.getVpcId());
+        writeString(out, strings, instance.getSubnetId());
+        writeString(out, strings, instance.getAmi());
+        writeString(out, strings, instance.getVmtype());
+        writeString(out, strings, instance.getZone());
+        Instant t = instance.getLaunchTime();
+        if (t == null) {
+          out.writeLong(NULL_TIME);
+        } else {
+          out.writeLong(t.getEpochSecond());
+          out.writeInt(t.getNano());
+        }
+        out.writeByte(instance.getStatus().ordinal());
+      }
+    }
+  }
+
+  private static List<ServerGroup> decode(DataInputStream in) throws IOException {
+    List<String> strings = new ArrayList<>();
+    int numGroups = readCount(in);
+    List<ServerGroup> groups = new ArrayList<>(numGroups);
+    for (int i = 0; i < numGroups; ++i) {
+      ServerGroup.Builder builder = ServerGroup.builder()
+          .platform(readString(in, strings))
+          .group(readString(in, strings))
+          .minSize(in.readInt())
+          .maxSize(in.readInt())
+          .desiredSize(in.readInt());
+      int numInstances = readCount(in);
+      for (int j = 0; j < numInstances; ++j) {
+        Instance.Builder ib = Instance.builder()
+            .node(in.readUTF())
+            .privateIpAddress(readString(in, strings))
+            .ipv6Address(readString(in, strings))
+            .vpcId(readString(in, strings))
+            .subnetId(readString(in, strings))
+            .ami(readString(in, strings))
+            .vmtype(readString(in, strings))
+            .zone(readString(in, strings));
+        long seconds = in.readLong();
+        if (seconds != NULL_TIME) {
+          ib.launchTime(Instant.ofEpochSecond(seconds, in.readInt()));
+        }
+        int status = in.readByte();
+        if (status < 0 || status >= STATUSES.length) {
+          throw new IOException("invalid status in snapshot file: " + status);
+        }
+        ib.status(STATUSES[status]);
+        builder.addInstance(ib.build());
+      }
+      groups.add(builder.build());
+    }
+    return groups;
+  }
+
+  /**
+   * Read a count for a list of items. Each item takes at least one byte, so a count that
+   * is larger than the remaining data must be invalid. The check avoids sizing collections
+   * based on a garbage value.
+   */
+  private static int readCount(DataInputStream in) throws IOException {
+    int n = in.readInt();
+    if (n < 0 || n > in.available()) {
+      throw new IOException("invalid count in snapshot file: " + n);
+    }
+    return n;
+  }
+
+  private static void writeString(
+      DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(NULL_STRING);
+    } else {
+      Integer idx = strings.get(value);
+      if (idx == null) {
+        strings.put(value, strings.size());
+        out.writeInt(NEW_STRING);
+        out.writeUTF(value);
+      } else {
+        out.writeInt(idx);
+      }
+    }
+  }
+
+  private static String readString(DataInputStream in, List<String> strings) throws IOException {
+    int idx = in.readInt();
+    switch (idx) {
+      case NULL_STRING:
+        return null;
+      case NEW_STRING:
+        String value = in.readUTF();
+        strings.add(value);
+        return value;
+      default:
+        if (idx < 0 || idx >= strings.size()) {
+          throw new IOException("invalid string reference in snapshot file: " + idx);
+        }
+        return strings.get(idx);
+    }
+  }
+}
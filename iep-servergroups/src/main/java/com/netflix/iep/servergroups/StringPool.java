@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+/**
+ * Pool for canonicalizing strings while decoding a response. Attributes such as the zone
+ * or vmtype have a low cardinality, but are repeated for every instance. Using the pool
+ * means each distinct value is only retained once. Lookups can be done directly against
+ * the character buffer of the parser so that a new string is only allocated the first
+ * time a value is seen.
+ *
+ * <p>This class is not thread safe. The expectation is that a new pool will be used for
+ * each load.
+ */
+final class StringPool {
+
+  // Limit on the number of distinct values to avoid unbounded growth if it is used for
+  // a field with a high cardinality. Values beyond the limit will not be canonicalized.
+  private static final int MAX_SIZE = 1 << 16;
+
+  private String[] table;
+  private int size;
+
+  /** Create a new instance. */
+  StringPool() {
+    table = new String[256];
+    size = 0;
+  }
+
+  /** Return the number of distinct values in the pool. */
+  int size() {
+    return size;
+  }
+
+  /** Return the canonical string for the value. */
+  String intern(String value) {
+    char[] cs = value.toCharArray();
+    return intern(cs, 0, cs.length);
+  }
+
+  /** Return the canonical string for the range of characters from the buffer. */
+  String intern(char[] buf, int offset, int length) {
+    int h = 0;
+    for (int i = 0; i < length; ++i) {
+      h = 31 * h + buf[offset + i];
+    }
+
+    int mask = table.length - 1;
+    int pos = spread(h) & mask;
+    String s;
+    while ((s = table[pos]) != null) {
+      if (s.hashCode() == h && matches(s, buf, offset, length)) {
+        return s;
+      }
+      pos = (pos + 1) & mask;
+    }
+
+    String value = new String(buf, offset, length);
+    if (size < MAX_SIZE) {
+      table[pos] = value;
+      ++size;
+      if (size * 2 > table.length) {
+        resize();
+      }
+    }
+    return value;
+  }
+
+  private static int spread(int h) {
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean matches(String s, char[] buf, int offset, int length) {
+    if (s.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (s.charAt(i) != buf[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void resize() {
+    String[] old = table;
+    table = new String[old.length * 2];
+    int mask = table.length - 1;
+    for (String s : old) {
+      if (s != null) {
+        int pos = spread(s.hashCode()) & mask;
+        while (table[pos] != null) {
+          pos = (pos + 1) & mask;
+        }
+        table[pos] = s;
+      }
+    }
+  }
+}
@@ -15,6 +15,11 @@
  */
 package com.netflix.iep.servergroups;
 
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import com.netflix.spectator.ipc.http.HttpClient;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -158,4 +163,28 @@ public class EddaLoaderTest {
     List<ServerGroup> actual = get("edda-noip.json");
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void metrics() throws Exception {
+    Registry registry = new DefaultRegistry();
+    HttpClient client = TestHttpClient.resource(200, "edda-noip.json", true);
+    new EddaLoader(client, LoaderUtils.EDDA_URI, registry).call();
+
+    Id warnings = registry.createId("iep.groups.decodeWarnings")
+        .withTag("id", "edda")
+        .withTag("reason", "invalidInstance");
+    Assert.assertEquals(1, registry.counter(warnings).count());
+    Assert.assertEquals(1, registry.timer("iep.groups.fetchTime", "id", "edda").count());
+    Assert.assertEquals(1, registry.timer("iep.groups.decodeTime", "id", "edda").count());
+
+    PolledMeter.update(registry);
+    double compressed = registry
+        .gauge("iep.groups.payloadSize", "id", "edda", "encoding", "compressed")
+        .value();
+    double uncompressed = registry
+        .gauge("iep.groups.payloadSize", "id", "edda", "encoding", "uncompressed")
+        .value();
+    Assert.assertTrue(compressed > 0.0);
+    Assert.assertTrue(uncompressed > compressed);
+  }
 }
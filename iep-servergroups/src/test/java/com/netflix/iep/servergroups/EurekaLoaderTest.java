@@ -22,9 +22,16 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(JUnit4.class)
 public class EurekaLoaderTest {
@@ -188,6 +195,193 @@ public class EurekaLoaderTest {
     Assert.assertEquals(expected, actual);
   }
 
+  private List<ServerGroup> getParallel(String resource, boolean gzip) throws Exception {
+    HttpClient client = TestHttpClient.resource(200, resource, gzip);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      // Threshold of 0 to force the parallel decoding even for the small test files
+      EurekaLoader.Options options = new EurekaLoader.Options()
+          .withParallelDecoding(pool)
+          .withParallelThreshold(0);
+      EurekaLoader loader = new EurekaLoader(client, LoaderUtils.EUREKA_URI, v -> true, options);
+      List<ServerGroup> groups = loader.call();
+      groups.sort(Comparator.comparing(ServerGroup::getId));
+      return groups;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void parallelMatchesSerial() throws Exception {
+    String[] resources = {
+        "eureka-dup.json",
+        "eureka-ec2.json",
+        "eureka-invalid.json",
+        "eureka-ip.json",
+        "eureka-nimble.json",
+        "eureka-no-id.json",
+        "eureka-no-ip.json",
+        "eureka-titus.json",
+        "eureka-titus-2.json",
+        "eureka-unknown-status.json"
+    };
+    for (String resource : resources) {
+      List<ServerGroup> expected = get(resource);
+      Assert.assertEquals(resource, expected, getParallel(resource, false));
+      Assert.assertEquals(resource, expected, getParallel(resource, true));
+    }
+  }
+
+  @Test
+  public void parallelBelowThreshold() throws Exception {
+    HttpClient client = TestHttpClient.resource(200, "eureka-ec2.json", false);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      EurekaLoader loader = new EurekaLoader(client, LoaderUtils.EUREKA_URI, v -> true, pool);
+      List<ServerGroup> expected = new ArrayList<>();
+      expected.add(defaultEc2Group());
+      Assert.assertEquals(expected, loader.call());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static final URI DELTA_URI = URI.create("http://localhost:7101/v2/apps/delta");
+
+  private static byte[] resource(String name) throws IOException {
+    ClassLoader cl = Thread.currentThread().getContextClassLoader();
+    try (InputStream in = cl.getResourceAsStream(name)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static Instance ec2Instance(String node, String ip) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress(ip)
+        .vpcId("vpc-54321")
+        .ami("ami-0987654321")
+        .vmtype("m5.large")
+        .zone("us-east-1d")
+        .status(Instance.Status.UP)
+        .build();
+  }
+
+  @Test
+  public void reconcileHashCode() {
+    List<String> statuses = new ArrayList<>();
+    statuses.add("UP");
+    statuses.add("DOWN");
+    statuses.add("UP");
+    Assert.assertEquals("DOWN_1_UP_2_", EurekaLoader.reconcileHashCode(statuses));
+    Assert.assertEquals("", EurekaLoader.reconcileHashCode(new ArrayList<>()));
+  }
+
+  @Test
+  public void delta() throws Exception {
+    Map<URI, byte[]> responses = new HashMap<>();
+    responses.put(LoaderUtils.EUREKA_URI, resource("eureka-ec2.json"));
+    AtomicInteger fullRequests = new AtomicInteger();
+    HttpClient client = uri -> {
+      if (uri.equals(LoaderUtils.EUREKA_URI)) {
+        fullRequests.incrementAndGet();
+      }
+      return new TestHttpClient(200, responses.get(uri), false).newRequest(uri);
+    };
+    EurekaLoader.Options options = new EurekaLoader.Options().withDeltaUri(DELTA_URI);
+    EurekaLoader loader = new EurekaLoader(client, LoaderUtils.EUREKA_URI, v -> true, options);
+
+    // First load uses the full registry
+    List<ServerGroup> expected = new ArrayList<>();
+    expected.add(defaultEc2Group());
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(1, fullRequests.get());
+
+    // Instance added
+    responses.put(DELTA_URI, resource("eureka-delta-added.json"));
+    expected.clear();
+    expected.add(ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v001")
+        .addInstance(ec2Instance("i-1234567890", "10.20.30.40"))
+        .addInstance(ec2Instance("i-1234567891", "10.20.30.41"))
+        .build());
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(1, fullRequests.get());
+
+    // Instance deleted
+    responses.put(DELTA_URI, resource("eureka-delta-deleted.json"));
+    expected.clear();
+    expected.add(ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v001")
+        .addInstance(ec2Instance("i-1234567891", "10.20.30.41"))
+        .build());
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(1, fullRequests.get());
+  }
+
+  @Test
+  public void deltaHashCodeMismatch() throws Exception {
+    Map<URI, byte[]> responses = new HashMap<>();
+    responses.put(LoaderUtils.EUREKA_URI, resource("eureka-ec2.json"));
+    AtomicInteger fullRequests = new AtomicInteger();
+    HttpClient client = uri -> {
+      if (uri.equals(LoaderUtils.EUREKA_URI)) {
+        fullRequests.incrementAndGet();
+      }
+      return new TestHttpClient(200, responses.get(uri), false).newRequest(uri);
+    };
+    EurekaLoader.Options options = new EurekaLoader.Options().withDeltaUri(DELTA_URI);
+    EurekaLoader loader = new EurekaLoader(client, LoaderUtils.EUREKA_URI, v -> true, options);
+
+    List<ServerGroup> expected = new ArrayList<>();
+    expected.add(defaultEc2Group());
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(1, fullRequests.get());
+
+    // Hashcode from the server will not match after applying the delta, so it should fall
+    // back to the full registry
+    String delta = new String(resource("eureka-delta-added.json"), StandardCharsets.UTF_8)
+        .replace("UP_2_", "UP_3_");
+    responses.put(DELTA_URI, delta.getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(2, fullRequests.get());
+  }
+
+  @Test
+  public void deltaFailureFetchesFullRegistry() throws Exception {
+    Map<URI, byte[]> responses = new HashMap<>();
+    responses.put(LoaderUtils.EUREKA_URI, resource("eureka-ec2.json"));
+    responses.put(DELTA_URI, new byte[] {'{'});
+    AtomicInteger fullRequests = new AtomicInteger();
+    HttpClient client = uri -> {
+      if (uri.equals(LoaderUtils.EUREKA_URI)) {
+        fullRequests.incrementAndGet();
+      }
+      return new TestHttpClient(200, responses.get(uri), false).newRequest(uri);
+    };
+    EurekaLoader.Options options = new EurekaLoader.Options().withDeltaUri(DELTA_URI);
+    EurekaLoader loader = new EurekaLoader(client, LoaderUtils.EUREKA_URI, v -> true, options);
+
+    List<ServerGroup> expected = new ArrayList<>();
+    expected.add(defaultEc2Group());
+    Assert.assertEquals(expected, loader.call());
+
+    // Invalid delta response
+    try {
+      loader.call();
+      Assert.fail("expected delta to fail");
+    } catch (Exception e) {
+      // expected
+    }
+
+    // Next load should use the full registry
+    Assert.assertEquals(expected, loader.call());
+    Assert.assertEquals(2, fullRequests.get());
+  }
+
   @Test(expected = IOException.class)
   public void failedRequest() throws Exception {
     HttpClient client = TestHttpClient.empty(400);
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(JUnit4.class)
+public class GroupDeltaTest {
+
+  private Instance instance(String node, Instance.Status status) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress("1.2.3.4")
+        .status(status)
+        .build();
+  }
+
+  private ServerGroup group(int size, Instance... instances) {
+    return ServerGroup.builder()
+        .platform("ec2")
+        .group("app-main-v001")
+        .desiredSize(size)
+        .addInstances(Arrays.asList(instances))
+        .build();
+  }
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(GroupDelta.InstanceChange.class)
+        .verify();
+  }
+
+  @Test
+  public void empty() {
+    ServerGroup g = group(1, instance("i-1", Instance.Status.UP));
+    GroupDelta delta = new GroupDelta.Builder()
+        .diff(g, g)
+        .diff(g, group(1, instance("i-1", Instance.Status.UP)))
+        .build();
+    Assert.assertTrue(delta.isEmpty());
+  }
+
+  @Test
+  public void addedGroup() {
+    Instance i = instance("i-1", Instance.Status.UP);
+    ServerGroup g = group(1, i);
+    GroupDelta delta = new GroupDelta.Builder().diff(null, g).build();
+    Assert.assertEquals(Collections.singletonList(g), delta.getAddedGroups());
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(g.getId(), null, i)),
+        delta.getAddedInstances());
+    Assert.assertTrue(delta.getRemovedGroups().isEmpty());
+  }
+
+  @Test
+  public void removedGroup() {
+    Instance i = instance("i-1", Instance.Status.UP);
+    ServerGroup g = group(1, i);
+    GroupDelta delta = new GroupDelta.Builder().diff(g, null).build();
+    Assert.assertEquals(Collections.singletonList(g), delta.getRemovedGroups());
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(g.getId(), i, null)),
+        delta.getRemovedInstances());
+    Assert.assertTrue(delta.getAddedGroups().isEmpty());
+  }
+
+  @Test
+  public void resizedGroup() {
+    ServerGroup g2 = group(2);
+    GroupDelta delta = new GroupDelta.Builder().diff(group(1), g2).build();
+    Assert.assertEquals(Collections.singletonList(g2), delta.getResizedGroups());
+    Assert.assertTrue(delta.getAddedGroups().isEmpty());
+    Assert.assertTrue(delta.getRemovedGroups().isEmpty());
+  }
+
+  @Test
+  public void instanceChanges() {
+    Instance i1 = instance("i-1", Instance.Status.UP);
+    Instance i2 = instance("i-2", Instance.Status.UP);
+    Instance i2Down = instance("i-2", Instance.Status.DOWN);
+    Instance i3 = instance("i-3", Instance.Status.UP);
+    Instance i4 = instance("i-4", Instance.Status.UP);
+    ServerGroup g1 = group(3, i1, i2, i3);
+    ServerGroup g2 = group(3, i2Down, i3, i4);
+    GroupDelta delta = new GroupDelta.Builder().diff(g1, g2).build();
+
+    String id = g1.getId();
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(id, null, i4)),
+        delta.getAddedInstances());
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(id, i1, null)),
+        delta.getRemovedInstances());
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(id, i2, i2Down)),
+        delta.getStatusChanges());
+    Assert.assertTrue(delta.getResizedGroups().isEmpty());
+  }
+
+  @Test
+  public void attributeChanges() {
+    Instance i1 = instance("i-1", Instance.Status.UP);
+    Instance i1Ami = Instance.builder()
+        .node("i-1")
+        .privateIpAddress("1.2.3.4")
+        .ami("ami-2")
+        .status(Instance.Status.UP)
+        .build();
+    Instance i2 = instance("i-2", Instance.Status.UP);
+    Instance i2Ip = Instance.builder()
+        .node("i-2")
+        .privateIpAddress("1.2.3.5")
+        .status(Instance.Status.DOWN)
+        .build();
+    ServerGroup g1 = group(2, i1, i2);
+    ServerGroup g2 = group(2, i1Ami, i2Ip);
+    GroupDelta delta = new GroupDelta.Builder().diff(g1, g2).build();
+
+    String id = g1.getId();
+    Assert.assertFalse(delta.isEmpty());
+    Assert.assertEquals(
+        Arrays.asList(
+            new GroupDelta.InstanceChange(id, i1, i1Ami),
+            new GroupDelta.InstanceChange(id, i2, i2Ip)),
+        delta.getChangedInstances());
+    Assert.assertEquals(
+        Collections.singletonList(new GroupDelta.InstanceChange(id, i2, i2Ip)),
+        delta.getStatusChanges());
+    Assert.assertTrue(delta.getAddedInstances().isEmpty());
+    Assert.assertTrue(delta.getRemovedInstances().isEmpty());
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class GroupMergerTest {
+
+  private Instance instance(String node, Instance.Status status) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress("1.2.3.4")
+        .status(status)
+        .build();
+  }
+
+  private ServerGroup group(String name, int size, Instance... instances) {
+    return ServerGroup.builder()
+        .platform("ec2")
+        .group(name)
+        .desiredSize(size)
+        .addInstances(Arrays.asList(instances))
+        .build();
+  }
+
+  private List<ServerGroup> sorted(List<ServerGroup> groups) {
+    List<ServerGroup> tmp = new ArrayList<>(groups);
+    tmp.sort(Comparator.comparing(ServerGroup::getId));
+    return tmp;
+  }
+
+  private List<ServerGroup> fullMerge(List<List<ServerGroup>> data) {
+    List<ServerGroup> groups = new ArrayList<>();
+    for (List<ServerGroup> gs : data) {
+      if (!gs.isEmpty()) {
+        groups = ServerGroup.merge(groups, gs);
+      }
+    }
+    return sorted(groups);
+  }
+
+  private List<ServerGroup> edda() {
+    List<ServerGroup> groups = new ArrayList<>();
+    groups.add(group("a-v001", 2, instance("i-1", null)));
+    groups.add(group("b-v001", 1, instance("i-2", null)));
+    groups.add(group("nimble_c-v001", 1, instance("i-4", null)));
+    return groups;
+  }
+
+  private List<ServerGroup> eureka() {
+    List<ServerGroup> groups = new ArrayList<>();
+    groups.add(group("a-v001", 0, instance("i-1", Instance.Status.UP)));
+    groups.add(group("c-v001", 0,
+        instance("i-3", Instance.Status.UP),
+        instance("i-4", Instance.Status.STARTING)));
+    return groups;
+  }
+
+  @Test
+  public void initial() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    Assert.assertTrue(merger.update("edda", edda()));
+    Assert.assertTrue(merger.update("eureka", eureka()));
+    Assert.assertEquals(fullMerge(Arrays.asList(edda(), eureka())), sorted(merger.merge()));
+  }
+
+  @Test
+  public void noLoaders() {
+    GroupMerger merger = new GroupMerger(Collections.emptyList(), false);
+    Assert.assertEquals(Collections.emptyList(), merger.merge());
+  }
+
+  @Test
+  public void unchanged() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    List<ServerGroup> before = merger.merge();
+    Assert.assertFalse(merger.update("eureka", eureka()));
+    List<ServerGroup> after = merger.merge();
+    Assert.assertEquals(before.size(), after.size());
+    for (int i = 0; i < before.size(); ++i) {
+      Assert.assertSame(before.get(i), after.get(i));
+    }
+  }
+
+  @Test
+  public void onlyChangedGroupsAreMerged() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    ServerGroup b = merger.merge()
+        .stream()
+        .filter(g -> g.getId().equals("ec2.b-v001"))
+        .findFirst()
+        .orElseThrow();
+
+    List<ServerGroup> eureka = eureka();
+    eureka.set(0, group("a-v001", 0, instance("i-1", Instance.Status.DOWN)));
+    Assert.assertTrue(merger.update("eureka", eureka));
+
+    List<ServerGroup> merged = merger.merge();
+    Assert.assertEquals(fullMerge(Arrays.asList(edda(), eureka)), sorted(merged));
+    Assert.assertTrue(merged.stream().anyMatch(g -> g == b));
+  }
+
+  @Test
+  public void removedGroup() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    merger.merge();
+
+    List<ServerGroup> edda = edda();
+    edda.remove(1);
+    Assert.assertTrue(merger.update("edda", edda));
+    Assert.assertEquals(fullMerge(Arrays.asList(edda, eureka())), sorted(merger.merge()));
+  }
+
+  @Test
+  public void nimbleTransplantChanged() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    merger.merge();
+
+    // Status change for the instance registered in the transplant group should be reflected
+    // in the nimble group
+    List<ServerGroup> eureka = eureka();
+    eureka.set(1, group("c-v001", 0,
+        instance("i-3", Instance.Status.UP),
+        instance("i-4", Instance.Status.UP)));
+    merger.update("eureka", eureka);
+    Assert.assertEquals(fullMerge(Arrays.asList(edda(), eureka)), sorted(merger.merge()));
+  }
+
+  @Test
+  public void nimbleGroupChanged() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), false);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    merger.merge();
+
+    List<ServerGroup> edda = edda();
+    edda.set(2, group("nimble_c-v001", 2, instance("i-3", null), instance("i-4", null)));
+    merger.update("edda", edda);
+    Assert.assertEquals(fullMerge(Arrays.asList(edda, eureka())), sorted(merger.merge()));
+  }
+
+  @Test
+  public void compact() {
+    GroupMerger merger = new GroupMerger(Arrays.asList("edda", "eureka"), true);
+    merger.update("edda", edda());
+    merger.update("eureka", eureka());
+    List<ServerGroup> merged = merger.merge();
+    Assert.assertEquals(fullMerge(Arrays.asList(edda(), eureka())), sorted(merged));
+    for (ServerGroup group : merged) {
+      Assert.assertTrue(group.getInstances() instanceof CompactInstanceList);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class GroupNameTest {
+
+  @Test
+  public void components() {
+    GroupName name = GroupName.parse("app-stack-x1shard1-detail-v001");
+    Assert.assertEquals("app-stack-x1shard1-detail-v001", name.group());
+    Assert.assertEquals("app", name.app());
+    Assert.assertEquals("app-stack-x1shard1-detail", name.cluster());
+    Assert.assertEquals("stack", name.stack());
+    Assert.assertEquals("x1shard1-detail", name.detail());
+    Assert.assertEquals("shard1", name.shard1());
+    Assert.assertNull(name.shard2());
+  }
+
+  @Test
+  public void cached() {
+    GroupName n1 = GroupName.parse(new String("app-main-v001"));
+    GroupName n2 = GroupName.parse(new String("app-main-v001"));
+    Assert.assertSame(n1, n2);
+  }
+
+  @Test
+  public void collision() {
+    // Both strings have the same hash code so they will map to the same slot
+    GroupName n1 = GroupName.parse("Aa");
+    GroupName n2 = GroupName.parse("BB");
+    Assert.assertEquals("Aa", n1.group());
+    Assert.assertEquals("BB", n2.group());
+    Assert.assertEquals("BB", GroupName.parse("BB").group());
+    Assert.assertEquals("Aa", GroupName.parse("Aa").group());
+  }
+
+  @Test
+  public void equality() {
+    Assert.assertEquals(GroupName.parse("app-main-v001"), GroupName.parse("app-main-v001"));
+    Assert.assertNotEquals(GroupName.parse("app-main-v001"), GroupName.parse("app-main-v002"));
+  }
+
+  @Test
+  public void mergeSharesName() {
+    ServerGroup g1 = ServerGroup.builder().platform("ec2").group("app-main-v001").build();
+    ServerGroup g2 = ServerGroup.builder().platform("ec2").group("app-main-v001").build();
+    ServerGroup merged = g1.merge(g2);
+    Assert.assertSame(g1.getApp(), merged.getApp());
+    Assert.assertSame(g1.getCluster(), merged.getCluster());
+  }
+
+  private static List<ServerGroup> groups(int n) {
+    return groups("app", n);
+  }
+
+  private static List<ServerGroup> groups(String prefix, int n) {
+    List<ServerGroup> groups = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      String group = prefix + (i / 4) + "-main-v" + String.format("%03d", i % 4);
+      groups.add(ServerGroup.builder().platform("ec2").group(group).build());
+    }
+    return groups;
+  }
+
+  @Test
+  public void retained() {
+    // Large enough that a fixed size cache would have many collisions
+    int n = 50_000;
+    Object owner = new Object();
+    try {
+      List<ServerGroup> g1 = groups(n);
+      GroupName.retain(owner, g1);
+      List<ServerGroup> g2 = groups(n);
+      for (int i = 0; i < n; ++i) {
+        Assert.assertSame(g1.get(i).name(), g2.get(i).name());
+      }
+    } finally {
+      GroupName.release(owner);
+    }
+  }
+
+  @Test
+  public void retainDropsUnused() {
+    Object owner = new Object();
+    try {
+      GroupName n1 = GroupName.parse("retain-main-v001");
+      GroupName.retain(owner, groups(10));
+      GroupName n2 = GroupName.parse("retain-main-v001");
+      Assert.assertEquals(n1, n2);
+      Assert.assertNotSame(n1, n2);
+    } finally {
+      GroupName.release(owner);
+    }
+  }
+
+  @Test
+  public void retainMultipleOwners() {
+    // Each owner has a different set of groups, retaining the names for one should not
+    // drop the names for the other
+    int n = 10_000;
+    Object owner1 = new Object();
+    Object owner2 = new Object();
+    try {
+      List<ServerGroup> g1 = groups("a", n);
+      GroupName.retain(owner1, g1);
+      List<ServerGroup> g2 = groups("b", n);
+      GroupName.retain(owner2, g2);
+      GroupName.retain(owner2, groups("b", n));
+
+      List<ServerGroup> g3 = groups("a", n);
+      List<ServerGroup> g4 = groups("b", n);
+      for (int i = 0; i < n; ++i) {
+        Assert.assertSame(g1.get(i).name(), g3.get(i).name());
+        Assert.assertSame(g2.get(i).name(), g4.get(i).name());
+      }
+    } finally {
+      GroupName.release(owner1);
+      GroupName.release(owner2);
+    }
+  }
+
+  @Test
+  public void release() {
+    Object owner = new Object();
+    GroupName n1 = GroupName.parse("release-main-v001");
+    GroupName.retain(owner, Collections.singletonList(
+        ServerGroup.builder().platform("ec2").group("release-main-v001").build()));
+    Assert.assertSame(n1, GroupName.parse("release-main-v001"));
+    GroupName.release(owner);
+
+    // Retain for another owner to clear the recently parsed names
+    Object other = new Object();
+    try {
+      GroupName.retain(other, Collections.emptyList());
+      Assert.assertNotSame(n1, GroupName.parse("release-main-v001"));
+    } finally {
+      GroupName.release(other);
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(JUnit4.class)
+public class GroupQueryTest {
+
+  private Instance instance(String node, String zone, String vmtype, Instance.Status status) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress("1.2.3.4")
+        .zone(zone)
+        .vmtype(vmtype)
+        .status(status)
+        .build();
+  }
+
+  private ServerGroup group(String platform, String name, Instance... instances) {
+    return ServerGroup.builder()
+        .platform(platform)
+        .group(name)
+        .addInstances(Arrays.asList(instances))
+        .build();
+  }
+
+  private GroupSnapshot snapshot() {
+    List<ServerGroup> groups = new ArrayList<>();
+    groups.add(group("ec2", "app-main-v001",
+        instance("i-1", "us-east-1c", "m5.large", Instance.Status.UP),
+        instance("i-2", "us-east-1d", "m5.large", Instance.Status.DOWN)));
+    groups.add(group("ec2", "app-main-v002",
+        instance("i-3", "us-east-1c", "m5.xlarge", Instance.Status.UP)));
+    groups.add(group("titus", "app-main-v001",
+        instance("titus-1", "us-east-1c", "m5.large", Instance.Status.UP),
+        instance("titus-2", "us-east-1e", "m5.large", Instance.Status.STARTING)));
+    groups.add(group("ec2", "app-test-v001",
+        instance("i-4", "us-east-1d", "m5.large", Instance.Status.UP)));
+    groups.add(group("ec2", "foo-main-v001"));
+    groups.add(group("titus", "foo-main-v002",
+        instance("titus-3", "us-east-1d", "r5.large", Instance.Status.UP)));
+    return GroupSnapshot.create(groups);
+  }
+
+  private List<String> ids(List<ServerGroup> groups) {
+    return groups.stream().map(ServerGroup::getId).collect(Collectors.toList());
+  }
+
+  private List<String> nodes(List<Instance> instances) {
+    return instances.stream().map(Instance::getNode).collect(Collectors.toList());
+  }
+
+  @Test
+  public void all() {
+    GroupSnapshot snapshot = snapshot();
+    Assert.assertEquals(snapshot.getGroups(), snapshot.query().groups());
+    Assert.assertEquals(7, snapshot.query().instances().size());
+    Assert.assertEquals(7, snapshot.query().count());
+  }
+
+  @Test
+  public void empty() {
+    GroupQuery query = GroupSnapshot.empty().query().app("app");
+    Assert.assertEquals(Collections.emptyList(), query.groups());
+    Assert.assertEquals(Collections.emptyList(), query.instances());
+    Assert.assertEquals(0, query.count());
+  }
+
+  @Test
+  public void platform() {
+    Assert.assertEquals(
+        Arrays.asList("titus.app-main-v001", "titus.foo-main-v002"),
+        ids(snapshot().query().platform("titus").groups()));
+  }
+
+  @Test
+  public void unknownValue() {
+    Assert.assertEquals(0, snapshot().query().platform("unknown").count());
+    Assert.assertEquals(0, snapshot().query().app("unknown").count());
+    Assert.assertEquals(0, snapshot().query().zone("unknown").count());
+  }
+
+  @Test
+  public void app() {
+    Assert.assertEquals(
+        Arrays.asList("ec2.foo-main-v001", "titus.foo-main-v002"),
+        ids(snapshot().query().app("foo").groups()));
+  }
+
+  @Test
+  public void cluster() {
+    Assert.assertEquals(
+        Arrays.asList("ec2.app-main-v001", "ec2.app-main-v002", "titus.app-main-v001"),
+        ids(snapshot().query().cluster("app-main").groups()));
+  }
+
+  @Test
+  public void stack() {
+    Assert.assertEquals(
+        Collections.singletonList("ec2.app-test-v001"),
+        ids(snapshot().query().stack("test").groups()));
+  }
+
+  @Test
+  public void appAndCluster() {
+    Assert.assertEquals(
+        Collections.singletonList("ec2.app-test-v001"),
+        ids(snapshot().query().app("app").cluster("app-test").groups()));
+    Assert.assertEquals(0, snapshot().query().app("foo").cluster("app-test").count());
+  }
+
+  @Test
+  public void platformAppStatus() {
+    GroupQuery query = snapshot().query()
+        .platform("titus")
+        .app("app")
+        .status(Instance.Status.UP);
+    Assert.assertEquals(Collections.singletonList("titus-1"), nodes(query.instances()));
+    Assert.assertEquals(Collections.singletonList("titus.app-main-v001"), ids(query.groups()));
+    Assert.assertEquals(1, query.count());
+  }
+
+  @Test
+  public void zone() {
+    Assert.assertEquals(
+        Arrays.asList("i-1", "i-3", "titus-1"),
+        nodes(snapshot().query().zone("us-east-1c").instances()));
+  }
+
+  @Test
+  public void vmtype() {
+    Assert.assertEquals(
+        Collections.singletonList("titus.foo-main-v002"),
+        ids(snapshot().query().vmtype("r5.large").groups()));
+  }
+
+  @Test
+  public void multipleInstancePredicates() {
+    GroupQuery query = snapshot().query()
+        .zone("us-east-1d")
+        .vmtype("m5.large")
+        .status(Instance.Status.UP);
+    Assert.assertEquals(Collections.singletonList("i-4"), nodes(query.instances()));
+  }
+
+  @Test
+  public void groupsOnlyWithMatchingInstances() {
+    // Group without instances should be excluded when there is an instance predicate
+    Assert.assertEquals(
+        Collections.emptyList(),
+        ids(snapshot().query().app("foo").status(Instance.Status.DOWN).groups()));
+    Assert.assertEquals(
+        Collections.singletonList("ec2.app-main-v001"),
+        ids(snapshot().query().status(Instance.Status.DOWN).groups()));
+  }
+
+  @Test
+  public void matchesStreamFilter() {
+    GroupSnapshot snapshot = snapshot();
+    List<Instance> expected = snapshot.getGroups().stream()
+        .filter(g -> "ec2".equals(g.getPlatform()))
+        .flatMap(g -> g.getInstances().stream())
+        .filter(i -> i.getStatus() == Instance.Status.UP)
+        .collect(Collectors.toList());
+    List<Instance> actual = snapshot.query()
+        .platform("ec2")
+        .status(Instance.Status.UP)
+        .instances();
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void compactInstances() {
+    List<ServerGroup> groups = new ArrayList<>();
+    for (ServerGroup group : snapshot().getGroups()) {
+      groups.add(group.toCompact());
+    }
+    GroupSnapshot compact = GroupSnapshot.create(groups);
+    GroupQuery query = compact.query()
+        .zone("us-east-1d")
+        .vmtype("m5.large")
+        .status(Instance.Status.UP);
+    Assert.assertEquals(Collections.singletonList("i-4"), nodes(query.instances()));
+    Assert.assertEquals(
+        Arrays.asList("i-1", "i-3", "titus-1"),
+        nodes(compact.query().zone("us-east-1c").instances()));
+  }
+
+  @Test
+  public void intersect() {
+    int[] a = {1, 3, 5, 7, 9};
+    int[] b = {2, 3, 4, 7, 10};
+    Assert.assertArrayEquals(new int[] {3, 7}, GroupQuery.intersect(a, b));
+    Assert.assertArrayEquals(new int[0], GroupQuery.intersect(a, new int[0]));
+    Assert.assertArrayEquals(a, GroupQuery.intersect(a, a));
+  }
+}
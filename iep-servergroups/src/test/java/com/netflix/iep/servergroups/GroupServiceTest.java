@@ -15,18 +15,32 @@
  */
 package com.netflix.iep.servergroups;
 
+import com.netflix.iep.service.State;
+import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(JUnit4.class)
 public class GroupServiceTest {
@@ -93,6 +107,287 @@ public class GroupServiceTest {
     service.stop();
   }
 
+  @Test
+  public void snapshot() throws Exception {
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", eddaLoader());
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ZERO, loaders);
+    service.start();
+    GroupSnapshot snapshot = service.getSnapshot();
+    Assert.assertEquals(snapshot.getGroups(), service.getGroups());
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), snapshot.findByApp("app"));
+    Assert.assertEquals(eddaInstance(), snapshot.findInstance("1.2.3.4"));
+    service.stop();
+  }
+
+  @Test
+  public void compactSnapshot() throws Exception {
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", eddaLoader());
+    GroupService.Options options = new GroupService.Options().withCompactInstances(true);
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ZERO, loaders, options);
+    service.start();
+    try {
+      GroupSnapshot snapshot = service.getSnapshot();
+      ServerGroup group = snapshot.findById("ec2.app-stack-detail-v001");
+      Assert.assertTrue(group.getInstances() instanceof CompactInstanceList);
+
+      // The snapshot should not keep the instance objects, they are created from the
+      // compact representation for each lookup
+      Instance byNode = snapshot.findInstance("i-12345");
+      Instance byAddress = snapshot.findInstance("1.2.3.4");
+      Assert.assertEquals(eddaInstance(), byNode);
+      Assert.assertEquals(byNode, byAddress);
+      Assert.assertNotSame(byNode, byAddress);
+      Assert.assertNotSame(byNode, snapshot.findInstance("i-12345"));
+
+      Assert.assertSame(group, snapshot.findGroupForInstance("i-12345"));
+      Assert.assertSame(group, snapshot.findGroupForInstance("1.2.3.4"));
+      Assert.assertNull(snapshot.findInstance("i-54321"));
+      Assert.assertNull(snapshot.findGroupForInstance("1.2.3.5"));
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void groupNamesReused() throws Exception {
+    // Each load creates new group objects, the parsed names should be reused across
+    // refreshes even with a large number of groups
+    final BlockingQueue<List<ServerGroup>> loads = new LinkedBlockingQueue<>();
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> {
+      List<ServerGroup> groups = new ArrayList<>();
+      for (int i = 0; i < 50_000; ++i) {
+        groups.add(ServerGroup.builder()
+            .platform("ec2")
+            .group("app" + i + "-main-v001")
+            .build());
+      }
+      loads.add(groups);
+      return groups;
+    });
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ofHours(1), loaders);
+    service.start();
+    try {
+      List<ServerGroup> g1 = loads.poll(10, TimeUnit.SECONDS);
+      service.refresh();
+      List<ServerGroup> g2 = loads.poll(10, TimeUnit.SECONDS);
+      Assert.assertNotNull(g1);
+      Assert.assertNotNull(g2);
+      for (int i = 0; i < g1.size(); ++i) {
+        Assert.assertSame(g1.get(i).name(), g2.get(i).name());
+      }
+    } finally {
+      service.stop();
+    }
+  }
+
+  private GroupService namesService(String prefix, BlockingQueue<List<ServerGroup>> loads) {
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> {
+      List<ServerGroup> groups = new ArrayList<>();
+      for (int i = 0; i < 50_000; ++i) {
+        groups.add(ServerGroup.builder()
+            .platform("ec2")
+            .group(prefix + i + "-main-v001")
+            .build());
+      }
+      loads.add(groups);
+      return groups;
+    });
+    return new GroupService(new NoopRegistry(), Duration.ofHours(1), loaders);
+  }
+
+  @Test
+  public void groupNamesReusedMultipleServices() throws Exception {
+    // Each service has a different set of groups, a refresh for one service should not
+    // cause the names for the other to be dropped
+    final BlockingQueue<List<ServerGroup>> loads1 = new LinkedBlockingQueue<>();
+    final BlockingQueue<List<ServerGroup>> loads2 = new LinkedBlockingQueue<>();
+    GroupService service1 = namesService("a", loads1);
+    GroupService service2 = namesService("b", loads2);
+    service1.start();
+    service2.start();
+    try {
+      List<ServerGroup> g1 = loads1.poll(10, TimeUnit.SECONDS);
+      List<ServerGroup> g2 = loads2.poll(10, TimeUnit.SECONDS);
+      service2.refresh();
+      Assert.assertNotNull(loads2.poll(10, TimeUnit.SECONDS));
+      service1.refresh();
+      List<ServerGroup> g3 = loads1.poll(10, TimeUnit.SECONDS);
+      service2.refresh();
+      List<ServerGroup> g4 = loads2.poll(10, TimeUnit.SECONDS);
+      Assert.assertNotNull(g1);
+      Assert.assertNotNull(g2);
+      Assert.assertNotNull(g3);
+      Assert.assertNotNull(g4);
+      for (int i = 0; i < g1.size(); ++i) {
+        Assert.assertSame(g1.get(i).name(), g3.get(i).name());
+        Assert.assertSame(g2.get(i).name(), g4.get(i).name());
+      }
+    } finally {
+      service1.stop();
+      service2.stop();
+    }
+  }
+
+  @Test
+  public void snapshotReusedIfUnchanged() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(3);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> {
+      latch.countDown();
+      return Collections.singletonList(eddaGroup());
+    });
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ZERO, loaders);
+    service.start();
+    GroupSnapshot snapshot = service.getSnapshot();
+    latch.await();
+    Assert.assertSame(snapshot, service.getSnapshot());
+    service.stop();
+  }
+
+  @Test
+  public void listener() throws Exception {
+    final List<ServerGroup> data = new CopyOnWriteArrayList<>();
+    data.add(eddaGroup());
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> new ArrayList<>(data));
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ZERO, loaders);
+    service.start();
+
+    final BlockingQueue<GroupDelta> deltas = new LinkedBlockingQueue<>();
+    service.addListener((snapshot, delta) -> deltas.add(delta));
+
+    // Invoked once when added with the current set of groups
+    GroupDelta initial = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(initial);
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), initial.getAddedGroups());
+
+    // Invoked with the changes after a refresh
+    ServerGroup updated = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .minSize(10)
+        .maxSize(100)
+        .desiredSize(43)
+        .addInstance(eddaInstance())
+        .build();
+    data.set(0, updated);
+    GroupDelta delta = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(delta);
+    Assert.assertEquals(Collections.singletonList(updated), delta.getResizedGroups());
+    Assert.assertTrue(delta.getAddedGroups().isEmpty());
+    service.stop();
+  }
+
+  @Test
+  public void listenerAttributeChange() throws Exception {
+    final List<ServerGroup> data = new CopyOnWriteArrayList<>();
+    data.add(eddaGroup());
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> new ArrayList<>(data));
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ZERO, loaders);
+    service.start();
+
+    final BlockingQueue<GroupDelta> deltas = new LinkedBlockingQueue<>();
+    service.addListener((snapshot, delta) -> deltas.add(delta));
+    Assert.assertNotNull(deltas.poll(10, TimeUnit.SECONDS));
+
+    // Only the ami for the instance is changed
+    Instance instance = Instance.builder()
+        .node("i-12345")
+        .privateIpAddress("1.2.3.4")
+        .vpcId("vpc-123")
+        .subnetId("subnet-123")
+        .ami("ami-456")
+        .vmtype("m5.large")
+        .zone("us-east-1e")
+        .status(Instance.Status.NOT_REGISTERED)
+        .build();
+    ServerGroup updated = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .minSize(10)
+        .maxSize(100)
+        .desiredSize(42)
+        .addInstance(instance)
+        .build();
+    data.set(0, updated);
+    GroupDelta delta = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(delta);
+    Assert.assertEquals(
+        Collections.singletonList(
+            new GroupDelta.InstanceChange(updated.getId(), eddaInstance(), instance)),
+        delta.getChangedInstances());
+    Assert.assertTrue(delta.getStatusChanges().isEmpty());
+    service.stop();
+  }
+
+  private static Loader sizedLoader(String group, AtomicInteger size) {
+    return () -> Collections.singletonList(ServerGroup.builder()
+        .platform("ec2")
+        .group(group)
+        .desiredSize(size.get())
+        .build());
+  }
+
+  @Test
+  public void slowListenerDoesNotBlockMerge() throws Exception {
+    final AtomicInteger sizeA = new AtomicInteger(1);
+    final AtomicInteger sizeB = new AtomicInteger(1);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("a", sizedLoader("a-main-v001", sizeA));
+    loaders.put("b", sizedLoader("b-main-v001", sizeB));
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ofHours(1), loaders);
+    service.start();
+
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final BlockingQueue<GroupDelta> deltas = new LinkedBlockingQueue<>();
+    service.addListener((snapshot, delta) -> {
+      deltas.add(delta);
+      if (!delta.getResizedGroups().isEmpty() && blocked.getCount() > 0) {
+        blocked.countDown();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    Assert.assertNotNull(deltas.poll(10, TimeUnit.SECONDS));
+
+    try {
+      // Listener will block the refresh thread for the first loader
+      sizeA.set(2);
+      service.refresh("a");
+      Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+      // Other loaders can still be merged while the listener is blocked
+      sizeB.set(2);
+      service.refresh("b");
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (service.getSnapshot().findById("ec2.b-main-v001").getDesiredSize() != 2
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, service.getSnapshot().findById("ec2.b-main-v001").getDesiredSize());
+    } finally {
+      release.countDown();
+    }
+
+    // Listener gets the updates in order once unblocked
+    GroupDelta d1 = deltas.poll(10, TimeUnit.SECONDS);
+    GroupDelta d2 = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(d1);
+    Assert.assertNotNull(d2);
+    Assert.assertEquals("ec2.a-main-v001", d1.getResizedGroups().get(0).getId());
+    Assert.assertEquals("ec2.b-main-v001", d2.getResizedGroups().get(0).getId());
+    service.stop();
+  }
+
   @Test
   public void failureToLoad() throws Exception {
     final CountDownLatch latch = new CountDownLatch(1);
@@ -131,4 +426,402 @@ public class GroupServiceTest {
       }
     }
   }
+
+  @Test
+  public void parallelFirstLoad() throws Exception {
+    // Each loader waits for the other one to start, this would deadlock if the first
+    // loads were done sequentially
+    final CountDownLatch latch = new CountDownLatch(2);
+    Loader edda = () -> {
+      latch.countDown();
+      latch.await();
+      return Collections.singletonList(eddaGroup());
+    };
+    Loader eureka = () -> {
+      latch.countDown();
+      latch.await();
+      return Collections.singletonList(eurekaGroup());
+    };
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", edda);
+    loaders.put("eureka", eureka);
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMinutes(1),
+        loaders,
+        new GroupService.Options().withStartupTimeout(Duration.ofSeconds(10)));
+    service.start();
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), service.getGroups());
+    service.stop();
+  }
+
+  @Test
+  public void startupTimeout() throws Exception {
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    loaders.put("eureka", () -> {
+      throw new RuntimeException("down");
+    });
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMillis(10),
+        loaders,
+        new GroupService.Options().withStartupTimeout(Duration.ofMillis(100)));
+    try {
+      service.start();
+      Assert.fail("start should fail if a required loader does not load before the timeout");
+    } catch (TimeoutException e) {
+      Assert.assertTrue(e.getMessage().contains("[eureka]"));
+    }
+    Assert.assertEquals(State.FAILED, service.state());
+  }
+
+  @Test
+  public void optionalLoader() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    loaders.put("eureka", () -> {
+      latch.await();
+      return Collections.singletonList(eurekaGroup());
+    });
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMinutes(1),
+        loaders,
+        new GroupService.Options()
+            .withStartupTimeout(Duration.ofSeconds(10))
+            .withOptionalLoaders(Collections.singleton("eureka")));
+    service.start();
+    Assert.assertTrue(service.isHealthy());
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), service.getGroups());
+    latch.countDown();
+    service.stop();
+  }
+
+  @Test
+  public void backoffDelay() {
+    Assert.assertEquals(1000L, GroupService.backoffDelay(1000L, 60000L, 1, 0.0));
+    Assert.assertEquals(2000L, GroupService.backoffDelay(1000L, 60000L, 2, 0.0));
+    Assert.assertEquals(8000L, GroupService.backoffDelay(1000L, 60000L, 4, 0.0));
+    Assert.assertEquals(60000L, GroupService.backoffDelay(1000L, 60000L, 10, 0.0));
+    Assert.assertEquals(60000L, GroupService.backoffDelay(1000L, 60000L, 1000, 0.0));
+    Assert.assertEquals(4000L, GroupService.backoffDelay(1000L, 60000L, 4, 1.0));
+  }
+
+  @Test
+  public void refreshDelay() {
+    Assert.assertEquals(60000L, GroupService.refreshDelay(60000L, 0.1, 0.0));
+    Assert.assertEquals(54000L, GroupService.refreshDelay(60000L, 0.1, 1.0));
+    Assert.assertEquals(60000L, GroupService.refreshDelay(60000L, 0.0, 1.0));
+    Assert.assertEquals(0L, GroupService.refreshDelay(0L, 0.1, 0.5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidJitter() {
+    new GroupService.Options().withJitter(1.5);
+  }
+
+  @Test
+  public void refreshOnDemand() throws Exception {
+    final BlockingQueue<Integer> calls = new LinkedBlockingQueue<>();
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("test", () -> {
+      calls.add(1);
+      return Collections.singletonList(eddaGroup());
+    });
+    GroupService service = new GroupService(new NoopRegistry(), Duration.ofHours(1), loaders);
+    service.start();
+    Assert.assertEquals(Integer.valueOf(1), calls.poll(10, TimeUnit.SECONDS));
+
+    // Multiple requests should be coalesced, depending on the timing there could be one
+    // additional refresh if a request came in while the first one was running
+    for (int i = 0; i < 10; ++i) {
+      service.refresh();
+      service.refresh("test");
+    }
+    service.refresh("unknown");
+    Assert.assertEquals(Integer.valueOf(1), calls.poll(10, TimeUnit.SECONDS));
+    Thread.sleep(100);
+    Assert.assertTrue(calls.size() <= 1);
+    service.stop();
+  }
+
+  @Test
+  public void loaderFrequency() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(3);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    loaders.put("eureka", () -> {
+      latch.countDown();
+      return Collections.singletonList(eurekaGroup());
+    });
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofHours(1),
+        loaders,
+        new GroupService.Options().withLoaderFrequency("eureka", Duration.ofMillis(1)));
+    service.start();
+    Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+    service.stop();
+  }
+
+  @Test
+  public void loaderTimeout() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    loaders.put("eureka", () -> {
+      if (latch.getCount() > 0) {
+        latch.countDown();
+        Thread.sleep(60000);
+      }
+      return Collections.singletonList(eurekaGroup());
+    });
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMillis(10),
+        loaders,
+        new GroupService.Options()
+            .withStartupTimeout(Duration.ofSeconds(10))
+            .withLoaderTimeout("eureka", Duration.ofMillis(50)));
+
+    // First call for eureka hangs, it should be interrupted and then succeed on the retry
+    service.start();
+    Assert.assertEquals(0, latch.getCount());
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), service.getGroups());
+    service.stop();
+  }
+
+  @Test
+  public void metrics() throws Exception {
+    Registry registry = new DefaultRegistry();
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    GroupService service = new GroupService(registry, Duration.ofHours(1), loaders);
+    service.start();
+    service.stop();
+
+    // Sizes are polled gauges so they do not expire if the data is unchanged
+    PolledMeter.update(registry);
+    Assert.assertEquals(1, registry.timer("iep.groups.loadTime", "id", "edda").count());
+    Assert.assertEquals(1, registry.timer("iep.groups.mergeTime", "id", "edda").count());
+    Assert.assertEquals(1.0, registry.gauge("iep.groups.groups", "id", "edda").value(), 1e-12);
+    Assert.assertEquals(1.0, registry.gauge("iep.groups.instances", "id", "edda").value(), 1e-12);
+    Assert.assertEquals(1.0, registry.gauge("iep.groups.mergedGroups").value(), 1e-12);
+    Assert.assertEquals(1.0, registry.gauge("iep.groups.mergedInstances").value(), 1e-12);
+  }
+
+  private static long resourceSize(String name) throws Exception {
+    ClassLoader cl = Thread.currentThread().getContextClassLoader();
+    return Files.size(Paths.get(cl.getResource(name).toURI()));
+  }
+
+  private static void checkLoaderMetrics(Registry registry, String id, String resource)
+      throws Exception {
+    int groups = LoaderUtils.createEurekaLoader(resource, null).call().size();
+    Assert.assertEquals(1, registry.timer("iep.groups.fetchTime", "id", id).count());
+    Assert.assertEquals(1, registry.timer("iep.groups.loadTime", "id", id).count());
+    Assert.assertEquals(1, registry.timer("iep.groups.mergeTime", "id", id).count());
+    Assert.assertEquals(
+        groups, registry.gauge("iep.groups.groups", "id", id).value(), 1e-12);
+    Assert.assertEquals(
+        resourceSize(resource),
+        registry.gauge("iep.groups.payloadSize", "id", id, "encoding", "compressed").value(),
+        1e-12);
+  }
+
+  @Test
+  public void metricsLoadersOfSameType() throws Exception {
+    Registry registry = new DefaultRegistry();
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("eureka-east", new EurekaLoader(
+        TestHttpClient.resource(200, "eureka-ec2.json", false),
+        LoaderUtils.EUREKA_URI,
+        v -> true,
+        new EurekaLoader.Options().withRegistry(registry).withId("eureka-east")));
+    loaders.put("eureka-west", new EurekaLoader(
+        TestHttpClient.resource(200, "eureka-titus-2.json", false),
+        LoaderUtils.EUREKA_URI,
+        v -> true,
+        new EurekaLoader.Options().withRegistry(registry).withId("eureka-west")));
+    GroupService service = new GroupService(registry, Duration.ofHours(1), loaders);
+    service.start();
+    service.stop();
+
+    // Each loader should have a separate set of metrics that is shared with the service
+    PolledMeter.update(registry);
+    checkLoaderMetrics(registry, "eureka-east", "eureka-ec2.json");
+    checkLoaderMetrics(registry, "eureka-west", "eureka-titus-2.json");
+    Assert.assertEquals(0, registry.timer("iep.groups.fetchTime", "id", "eureka").count());
+  }
+
+  @Test
+  public void snapshotFile() throws Exception {
+    Path file = Files.createTempDirectory("iep-groups").resolve("snapshot.bin");
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", eddaLoader());
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMinutes(1),
+        loaders,
+        new GroupService.Options().withSnapshotFile(file));
+    service.start();
+    service.stop();
+    Assert.assertTrue(Files.exists(file));
+
+    // Loader is down, but the service should start using the data from the snapshot file
+    final CountDownLatch latch = new CountDownLatch(1);
+    loaders.put("edda", () -> {
+      latch.await();
+      throw new RuntimeException("down");
+    });
+    service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMinutes(1),
+        loaders,
+        new GroupService.Options().withSnapshotFile(file));
+    service.start();
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), service.getGroups());
+    latch.countDown();
+    service.stop();
+  }
+
+  @Test
+  public void snapshotFileReplacedAfterLoad() throws Exception {
+    Path file = Files.createTempDirectory("iep-groups").resolve("snapshot.bin");
+    SnapshotFile.write(file, 0L, Collections.singletonList(eddaGroup()));
+
+    ServerGroup updated = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v002")
+        .desiredSize(1)
+        .addInstance(eddaInstance())
+        .build();
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", () -> Collections.singletonList(updated));
+    GroupService service = new GroupService(
+        new NoopRegistry(),
+        Duration.ofMinutes(1),
+        loaders,
+        new GroupService.Options().withSnapshotFile(file));
+
+    final BlockingQueue<GroupDelta> deltas = new LinkedBlockingQueue<>();
+    service.addListener((snapshot, delta) -> deltas.add(delta));
+    deltas.poll(10, TimeUnit.SECONDS);
+    service.start();
+
+    // Listeners are notified when the snapshot is restored
+    GroupDelta delta = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(delta);
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), delta.getAddedGroups());
+
+    // Delta should be relative to the restored snapshot
+    delta = deltas.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(delta);
+    Assert.assertEquals(Collections.singletonList(updated), delta.getAddedGroups());
+    Assert.assertEquals(Collections.singletonList(eddaGroup()), delta.getRemovedGroups());
+    Assert.assertEquals(Collections.singletonList(updated), service.getGroups());
+
+    // File is written in the background, stopping will wait for the pending write
+    service.stop();
+    Assert.assertEquals(
+        Collections.singletonList(updated), SnapshotFile.read(file).groups());
+  }
+
+  private ServerGroup updatedGroup() {
+    return ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v002")
+        .desiredSize(1)
+        .addInstance(eddaInstance())
+        .build();
+  }
+
+  private GroupService restoredService(
+      Map<String, Loader> loaders, GroupService.Options options) throws Exception {
+    Path file = Files.createTempDirectory("iep-groups").resolve("snapshot.bin");
+    SnapshotFile.write(file, 0L, Collections.singletonList(eddaGroup()));
+    return new GroupService(
+        new NoopRegistry(), Duration.ofMinutes(1), loaders, options.withSnapshotFile(file));
+  }
+
+  private void waitForGroups(GroupService service, List<ServerGroup> expected)
+      throws Exception {
+    long deadline = System.currentTimeMillis() + 10_000L;
+    while (!expected.equals(service.getGroups()) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(expected, service.getGroups());
+  }
+
+  @Test
+  public void snapshotFileReplacedWithoutOptionalLoader() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", () -> Collections.singletonList(updatedGroup()));
+    loaders.put("optional", () -> {
+      latch.countDown();
+      throw new RuntimeException("down");
+    });
+    GroupService service = restoredService(loaders,
+        new GroupService.Options().withOptionalLoaders(Collections.singleton("optional")));
+    service.start();
+    try {
+      // Optional loader never loads, the restored data should still be replaced
+      latch.await();
+      waitForGroups(service, Collections.singletonList(updatedGroup()));
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void snapshotFileReplacedAfterTimeout() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", () -> Collections.singletonList(updatedGroup()));
+    loaders.put("eureka", () -> {
+      latch.countDown();
+      throw new RuntimeException("down");
+    });
+    GroupService service = restoredService(loaders,
+        new GroupService.Options().withRestoredSnapshotTimeout(Duration.ZERO));
+    service.start();
+    try {
+      // Required loader keeps failing, the restored data should be replaced once the
+      // timeout has expired
+      latch.await();
+      waitForGroups(service, Collections.singletonList(updatedGroup()));
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void snapshotFileKeptForRequiredLoader() throws Exception {
+    final CountDownLatch eddaLatch = new CountDownLatch(1);
+    final CountDownLatch eurekaLatch = new CountDownLatch(2);
+    Map<String, Loader> loaders = new LinkedHashMap<>();
+    loaders.put("edda", () -> {
+      eddaLatch.countDown();
+      return Collections.singletonList(updatedGroup());
+    });
+    loaders.put("eureka", () -> {
+      eurekaLatch.countDown();
+      throw new RuntimeException("down");
+    });
+    GroupService service = restoredService(loaders, new GroupService.Options());
+    service.start();
+    try {
+      // Required loader has not loaded and the timeout has not expired. The second
+      // failure of the eureka loader is after the backoff delay, so the edda data will
+      // have been merged by then.
+      eddaLatch.await();
+      eurekaLatch.await();
+      Assert.assertEquals(Collections.singletonList(eddaGroup()), service.getGroups());
+    } finally {
+      service.stop();
+    }
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class GroupSnapshotTest {
+
+  private Instance instance(String node, String ip) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress(ip)
+        .build();
+  }
+
+  private ServerGroup group(String platform, String name, Instance... instances) {
+    ServerGroup.Builder builder = ServerGroup.builder()
+        .platform(platform)
+        .group(name);
+    for (Instance instance : instances) {
+      builder.addInstance(instance);
+    }
+    return builder.build();
+  }
+
+  private GroupSnapshot snapshot() {
+    List<ServerGroup> groups = new ArrayList<>();
+    groups.add(group("ec2", "app-main-v001", instance("i-1", "1.2.3.1")));
+    groups.add(group("ec2", "app-main-v002", instance("i-2", "1.2.3.2")));
+    groups.add(group("titus", "app-main-v001", instance("titus-1", "1.2.3.3")));
+    groups.add(group("ec2", "app-test-v001", instance("i-3", "1.2.3.4")));
+    groups.add(group("ec2", "foo-main-v001", Instance.builder()
+        .node("i-4")
+        .ipv6Address("::1")
+        .build()));
+    return GroupSnapshot.create(groups);
+  }
+
+  @Test
+  public void empty() {
+    GroupSnapshot snapshot = GroupSnapshot.create(Collections.emptyList());
+    Assert.assertSame(GroupSnapshot.empty(), snapshot);
+    Assert.assertEquals(0, snapshot.size());
+    Assert.assertEquals(Collections.emptyList(), snapshot.findByApp("app"));
+    Assert.assertNull(snapshot.findInstance("i-1"));
+  }
+
+  @Test
+  public void groups() {
+    Assert.assertEquals(5, snapshot().getGroups().size());
+    Assert.assertEquals(5, snapshot().size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void groupsImmutable() {
+    snapshot().getGroups().clear();
+  }
+
+  @Test
+  public void findById() {
+    ServerGroup g = snapshot().findById("titus.app-main-v001");
+    Assert.assertEquals("titus", g.getPlatform());
+    Assert.assertNull(snapshot().findById("ec2.app-main-v003"));
+  }
+
+  @Test
+  public void findByApp() {
+    Assert.assertEquals(4, snapshot().findByApp("app").size());
+    Assert.assertEquals(1, snapshot().findByApp("foo").size());
+    Assert.assertEquals(0, snapshot().findByApp("bar").size());
+  }
+
+  @Test
+  public void findByCluster() {
+    List<ServerGroup> groups = snapshot().findByCluster("app-main");
+    Assert.assertEquals(3, groups.size());
+    for (ServerGroup g : groups) {
+      Assert.assertEquals("app-main", g.getCluster());
+    }
+  }
+
+  @Test
+  public void findByStack() {
+    Assert.assertEquals(1, snapshot().findByStack("test").size());
+    Assert.assertEquals(4, snapshot().findByStack("main").size());
+  }
+
+  @Test
+  public void findInstanceByNode() {
+    Assert.assertEquals("1.2.3.2", snapshot().findInstance("i-2").getPrivateIpAddress());
+    Assert.assertNull(snapshot().findInstance("i-5"));
+  }
+
+  @Test
+  public void findInstanceByAddress() {
+    Assert.assertEquals("titus-1", snapshot().findInstance("1.2.3.3").getNode());
+    Assert.assertEquals("i-4", snapshot().findInstance("::1").getNode());
+  }
+
+  @Test
+  public void findGroupForInstance() {
+    Assert.assertEquals("ec2.app-test-v001", snapshot().findGroupForInstance("i-3").getId());
+    Assert.assertEquals("ec2.app-test-v001", snapshot().findGroupForInstance("1.2.3.4").getId());
+    Assert.assertNull(snapshot().findGroupForInstance("1.2.3.5"));
+  }
+
+  @Test
+  public void findCompactInstance() {
+    List<ServerGroup> groups = new ArrayList<>();
+    for (ServerGroup group : snapshot().getGroups()) {
+      groups.add(group.toCompact());
+    }
+    GroupSnapshot snapshot = GroupSnapshot.create(groups);
+    Assert.assertEquals("1.2.3.2", snapshot.findInstance("i-2").getPrivateIpAddress());
+    Assert.assertEquals("titus-1", snapshot.findInstance("1.2.3.3").getNode());
+    Assert.assertEquals("i-4", snapshot.findInstance("::1").getNode());
+    Assert.assertNull(snapshot.findInstance("i-5"));
+    Assert.assertEquals("ec2.foo-main-v001", snapshot.findGroupForInstance("::1").getId());
+    Assert.assertNull(snapshot.findGroupForInstance("1.2.3.5"));
+  }
+}
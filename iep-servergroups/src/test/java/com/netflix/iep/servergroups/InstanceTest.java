@@ -79,6 +79,15 @@ public class InstanceTest {
     Assert.assertEquals("1.2.3.4", defaultInstance().getPrivateIpAddress());
   }
 
+  @Test
+  public void ipv6Address() {
+    Instance instance = Instance.builder()
+        .node("i-12345")
+        .ipv6Address("::1")
+        .build();
+    Assert.assertEquals("::1", instance.getIpv6Address());
+  }
+
   @Test
   public void vpcId() {
     Assert.assertEquals("vpc-123", defaultInstance().getVpcId());
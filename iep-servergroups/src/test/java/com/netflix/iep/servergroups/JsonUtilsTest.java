@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import tools.jackson.core.JsonParser;
+import com.netflix.spectator.ipc.http.HttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class JsonUtilsTest {
+
+  private static final String PAYLOAD = "[\"a-main-v001\",\"b-main-v002\",null]";
+
+  private HttpResponse response(boolean gzip) throws IOException {
+    byte[] data = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+    Map<String, List<String>> headers = gzip
+        ? Collections.singletonMap("Content-Encoding", Collections.singletonList("gzip"))
+        : Collections.emptyMap();
+    return new HttpResponse(200, headers, gzip ? TestHttpClient.compress(data) : data);
+  }
+
+  private static List<ServerGroup> decode(JsonParser jp) throws IOException {
+    List<ServerGroup> groups = new ArrayList<>();
+    jp.nextToken();
+    JsonUtils.forEach(jp, groups, (vs, p) -> {
+      String name = JsonUtils.stringValue(p);
+      if (name != null) {
+        vs.add(ServerGroup.builder().platform("ec2").group(name).build());
+      }
+    });
+    return groups;
+  }
+
+  private void checkGroups(List<ServerGroup> groups) {
+    Assert.assertEquals(2, groups.size());
+    Assert.assertEquals("ec2.a-main-v001", groups.get(0).getId());
+    Assert.assertEquals("ec2.b-main-v002", groups.get(1).getId());
+  }
+
+  @Test
+  public void parseResponse() throws IOException {
+    checkGroups(JsonUtils.parseResponse(response(false), JsonUtilsTest::decode));
+  }
+
+  @Test
+  public void parseResponseGzip() throws IOException {
+    checkGroups(JsonUtils.parseResponse(response(true), JsonUtilsTest::decode));
+  }
+
+  @Test
+  public void entity() throws IOException {
+    byte[] expected = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+    Assert.assertArrayEquals(expected, JsonUtils.entity(response(false)));
+  }
+
+  @Test
+  public void entityGzip() throws IOException {
+    byte[] expected = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+    Assert.assertArrayEquals(expected, JsonUtils.entity(response(true)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parseResponseInvalid() throws IOException {
+    HttpResponse response = new HttpResponse(
+        200, Collections.emptyMap(), "{}".getBytes(StandardCharsets.UTF_8));
+    JsonUtils.parseResponse(response, JsonUtilsTest::decode);
+  }
+}
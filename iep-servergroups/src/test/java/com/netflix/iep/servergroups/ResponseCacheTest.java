@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spectator.ipc.IpcLogger;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
+import com.netflix.spectator.ipc.http.HttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ResponseCacheTest {
+
+  private final IpcLogger logger = new IpcLogger(new NoopRegistry());
+
+  private Map<String, String> headers(ResponseCache cache) {
+    Map<String, String> headers = new HashMap<>();
+    HttpRequestBuilder builder = new HttpRequestBuilder(logger, URI.create("http://localhost")) {
+      @Override public HttpRequestBuilder addHeader(String name, String value) {
+        headers.put(name, value);
+        return super.addHeader(name, value);
+      }
+    };
+    cache.addHeaders(builder);
+    return headers;
+  }
+
+  private HttpResponse response(int status, String body, String... headers) {
+    Map<String, List<String>> hs = new HashMap<>();
+    for (int i = 0; i < headers.length; i += 2) {
+      hs.put(headers[i], Collections.singletonList(headers[i + 1]));
+    }
+    return new HttpResponse(status, hs, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private JsonUtils.IOFunction<List<ServerGroup>> decoder(AtomicInteger count) {
+    return jp -> {
+      count.incrementAndGet();
+      return new ArrayList<>();
+    };
+  }
+
+  @Test
+  public void noHeadersInitially() {
+    Assert.assertEquals(Collections.emptyMap(), headers(new ResponseCache()));
+  }
+
+  @Test
+  public void conditionalHeaders() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    AtomicInteger count = new AtomicInteger();
+    cache.process(
+        response(200, "[]", "ETag", "\"abc\"", "Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"),
+        decoder(count));
+
+    Map<String, String> expected = new HashMap<>();
+    expected.put("If-None-Match", "\"abc\"");
+    expected.put("If-Modified-Since", "Wed, 21 Oct 2015 07:28:00 GMT");
+    Assert.assertEquals(expected, headers(cache));
+  }
+
+  @Test
+  public void notModified() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    AtomicInteger count = new AtomicInteger();
+    List<ServerGroup> groups = cache.process(response(200, "[]", "ETag", "1"), decoder(count));
+    Assert.assertSame(groups, cache.process(response(304, ""), decoder(count)));
+    Assert.assertEquals(1, count.get());
+  }
+
+  @Test(expected = IOException.class)
+  public void notModifiedWithoutPreviousResponse() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    cache.process(response(304, ""), decoder(new AtomicInteger()));
+  }
+
+  @Test(expected = IOException.class)
+  public void failure() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    cache.process(response(500, ""), decoder(new AtomicInteger()));
+  }
+
+  @Test
+  public void identicalBody() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    AtomicInteger count = new AtomicInteger();
+    List<ServerGroup> groups = cache.process(response(200, "[]"), decoder(count));
+    Assert.assertSame(groups, cache.process(response(200, "[]"), decoder(count)));
+    Assert.assertEquals(1, count.get());
+  }
+
+  @Test
+  public void changedBody() throws IOException {
+    ResponseCache cache = new ResponseCache();
+    AtomicInteger count = new AtomicInteger();
+    List<ServerGroup> groups = cache.process(response(200, "[]"), decoder(count));
+    Assert.assertNotSame(groups, cache.process(response(200, "[ ]"), decoder(count)));
+    Assert.assertEquals(2, count.get());
+  }
+}
@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Set;
 
@@ -262,6 +263,55 @@ public class ServerGroupTest {
     Assert.assertEquals(g1, g2.merge(g1));
   }
 
+  private Instance instance(String node, Instance.Status status) {
+    return Instance.builder()
+        .node(node)
+        .privateIpAddress("1.2.3.4")
+        .status(status)
+        .build();
+  }
+
+  @Test
+  public void mergeInterleavedInstances() {
+    ServerGroup g1 = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .addInstance(instance("i-1", Instance.Status.NOT_REGISTERED))
+        .addInstance(instance("i-3", Instance.Status.NOT_REGISTERED))
+        .addInstance(instance("i-4", Instance.Status.NOT_REGISTERED))
+        .addInstance(instance("i-6", Instance.Status.NOT_REGISTERED))
+        .build();
+    ServerGroup g2 = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .addInstance(instance("i-0", Instance.Status.UP))
+        .addInstance(instance("i-2", Instance.Status.STARTING))
+        .addInstance(instance("i-3", Instance.Status.UP))
+        .addInstance(instance("i-5", Instance.Status.UP))
+        .addInstance(instance("i-6", Instance.Status.DOWN))
+        .addInstance(instance("i-7", Instance.Status.UP))
+        .build();
+    ServerGroup expected = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .addInstance(instance("i-0", Instance.Status.UP))
+        .addInstance(instance("i-1", Instance.Status.NOT_REGISTERED))
+        .addInstance(instance("i-3", Instance.Status.UP))
+        .addInstance(instance("i-4", Instance.Status.NOT_REGISTERED))
+        .addInstance(instance("i-5", Instance.Status.UP))
+        .addInstance(instance("i-6", Instance.Status.DOWN))
+        .addInstance(instance("i-7", Instance.Status.UP))
+        .build();
+    Assert.assertEquals(expected, g1.merge(g2));
+    Assert.assertEquals(expected, g2.merge(g1));
+    Assert.assertEquals(expected, g1.toCompact().merge(g2.toCompact()));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void mergeImmutable() {
+    defaultGroup().merge(defaultGroup()).getInstances().clear();
+  }
+
   @Test
   public void mergeList() {
     ServerGroup g1 = ServerGroup.builder()
@@ -333,4 +383,48 @@ public class ServerGroupTest {
     Assert.assertEquals(g2, g1.merge(g2));
     Assert.assertEquals(g2, g2.merge(g1));
   }
+
+  @Test
+  public void compact() {
+    ServerGroup group = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .minSize(10)
+        .maxSize(100)
+        .desiredSize(42)
+        .addInstance(defaultInstance())
+        .addInstance(Instance.builder()
+            .node("i-23456")
+            .ipv6Address("::1")
+            .zone("us-east-1e")
+            .launchTime(Instant.ofEpochMilli(1544328558000L))
+            .status(Instance.Status.UP)
+            .build())
+        .build();
+    ServerGroup compact = group.toCompact();
+    Assert.assertNotSame(group, compact);
+    Assert.assertEquals(group, compact);
+    Assert.assertEquals(group.hashCode(), compact.hashCode());
+    Assert.assertEquals(group.getInstances(), compact.getInstances());
+    Assert.assertSame(compact, compact.toCompact());
+  }
+
+  @Test
+  public void compactSubMillisecondLaunchTime() {
+    ServerGroup group = ServerGroup.builder()
+        .platform("ec2")
+        .group("app-stack-detail-v001")
+        .addInstance(Instance.builder()
+            .node("i-12345")
+            .privateIpAddress("1.2.3.4")
+            .launchTime(Instant.ofEpochSecond(1544328558L, 1L))
+            .build())
+        .build();
+    Assert.assertSame(group, group.toCompact());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void compactImmutable() {
+    defaultGroup().toCompact().getInstances().clear();
+  }
 }
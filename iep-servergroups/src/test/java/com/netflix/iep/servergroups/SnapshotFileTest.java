@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.stream.Stream;
+
+@RunWith(JUnit4.class)
+public class SnapshotFileTest {
+
+  private List<ServerGroup> groups() {
+    List<ServerGroup> groups = new ArrayList<>();
+    for (int i = 0; i < 3; ++i) {
+      ServerGroup.Builder builder = ServerGroup.builder()
+          .platform("ec2")
+          .group("app-stack-v00" + i)
+          .minSize(1)
+          .maxSize(10)
+          .desiredSize(2);
+      for (int j = 0; j < 2; ++j) {
+        builder.addInstance(Instance.builder()
+            .node("i-" + i + j)
+            .privateIpAddress("1.2.3." + (i * 10 + j))
+            .ipv6Address(j == 0 ? null : "::" + i)
+            .vpcId("vpc-123")
+            .subnetId("subnet-123")
+            .ami("ami-123")
+            .vmtype("m5.large")
+            .zone("us-east-1e")
+            .launchTime(j == 0 ? null : Instant.ofEpochSecond(1234567890L, 42))
+            .status(Instance.Status.UP)
+            .build());
+      }
+      groups.add(builder.build());
+    }
+    groups.add(ServerGroup.builder().platform("titus").group("empty-v001").build());
+    return groups;
+  }
+
+  private Path tempFile() throws IOException {
+    return Files.createTempDirectory("iep-groups").resolve("snapshot.bin");
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    SnapshotFile.Data data = SnapshotFile.read(file);
+    Assert.assertEquals(42L, data.timestamp());
+    Assert.assertEquals(groups(), data.groups());
+  }
+
+  @Test
+  public void empty() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, Collections.emptyList());
+    Assert.assertEquals(Collections.emptyList(), SnapshotFile.read(file).groups());
+  }
+
+  @Test
+  public void overwrite() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 1L, groups());
+    SnapshotFile.write(file, 2L, groups().subList(0, 1));
+    SnapshotFile.Data data = SnapshotFile.read(file);
+    Assert.assertEquals(2L, data.timestamp());
+    Assert.assertEquals(groups().subList(0, 1), data.groups());
+    try (Stream<Path> files = Files.list(file.getParent())) {
+      Assert.assertEquals(1L, files.count());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void corrupted() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    byte[] data = Files.readAllBytes(file);
+    data[data.length - 5] ^= 0x1;
+    Files.write(file, data);
+    SnapshotFile.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncated() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    byte[] data = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(data, data.length / 2));
+    SnapshotFile.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void unsupportedVersion() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    byte[] data = Files.readAllBytes(file);
+    data[7] = 99;
+    Files.write(file, data);
+    SnapshotFile.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void invalidMagic() throws Exception {
+    Path file = tempFile();
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    SnapshotFile.read(file);
+  }
+
+  private void writeLength(Path file, int length) throws IOException {
+    byte[] data = Files.readAllBytes(file);
+    ByteBuffer.wrap(data).putInt(24, length);
+    Files.write(file, data);
+  }
+
+  @Test(expected = IOException.class)
+  public void lengthTooLarge() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    writeLength(file, Integer.MAX_VALUE);
+    SnapshotFile.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void lengthNegative() throws Exception {
+    Path file = tempFile();
+    SnapshotFile.write(file, 42L, groups());
+    writeLength(file, -1);
+    SnapshotFile.read(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void invalidCount() throws Exception {
+    // Payload with a valid checksum, but a group count that is larger than the data
+    byte[] payload = ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).array();
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer buffer = ByteBuffer.allocate(28 + payload.length)
+        .putInt(0x49455047)
+        .putInt(1)
+        .putLong(42L)
+        .putLong(crc.getValue())
+        .putInt(payload.length)
+        .put(payload);
+    Path file = tempFile();
+    Files.createDirectories(file.getParent());
+    Files.write(file, buffer.array());
+    SnapshotFile.read(file);
+  }
+}
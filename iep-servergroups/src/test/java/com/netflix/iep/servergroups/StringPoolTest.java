@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.iep.servergroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class StringPoolTest {
+
+  @Test
+  public void canonical() {
+    StringPool pool = new StringPool();
+    String s1 = pool.intern(new String("us-east-1a"));
+    String s2 = pool.intern(new String("us-east-1a"));
+    Assert.assertEquals("us-east-1a", s1);
+    Assert.assertSame(s1, s2);
+    Assert.assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void distinct() {
+    StringPool pool = new StringPool();
+    Assert.assertEquals("a", pool.intern("a"));
+    Assert.assertEquals("b", pool.intern("b"));
+    Assert.assertEquals("", pool.intern(""));
+    Assert.assertEquals(3, pool.size());
+  }
+
+  @Test
+  public void charRange() {
+    StringPool pool = new StringPool();
+    char[] buf = "xxus-east-1ayy".toCharArray();
+    String s = pool.intern(buf, 2, 10);
+    Assert.assertEquals("us-east-1a", s);
+    Assert.assertSame(s, pool.intern("us-east-1a"));
+  }
+
+  @Test
+  public void resize() {
+    StringPool pool = new StringPool();
+    for (int i = 0; i < 10_000; ++i) {
+      pool.intern("value-" + i);
+    }
+    Assert.assertEquals(10_000, pool.size());
+    for (int i = 0; i < 10_000; ++i) {
+      String s = "value-" + i;
+      Assert.assertSame(pool.intern(s), pool.intern(new String(s)));
+    }
+    Assert.assertEquals(10_000, pool.size());
+  }
+
+  @Test
+  public void sharedAcrossInstances() throws Exception {
+    List<ServerGroup> groups = LoaderUtils.createEurekaLoader("eureka-nimble.json", null).call();
+    List<Instance> instances = new ArrayList<>();
+    for (ServerGroup group : groups) {
+      instances.addAll(group.getInstances());
+    }
+    Assert.assertEquals(2, instances.size());
+    Assert.assertEquals("us-east-1d", instances.get(0).getZone());
+    Assert.assertSame(instances.get(0).getZone(), instances.get(1).getZone());
+    Assert.assertSame(instances.get(0).getAmi(), instances.get(1).getAmi());
+  }
+}
@@ -76,7 +76,7 @@ class TestHttpClient implements HttpClient {
     return baos.toByteArray();
   }
 
-  private static byte[] compress(byte[] data) throws IOException {
+  static byte[] compress(byte[] data) throws IOException {
     ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length);
     try (GZIPOutputStream out = new GZIPOutputStream(baos)) {
       out.write(data);
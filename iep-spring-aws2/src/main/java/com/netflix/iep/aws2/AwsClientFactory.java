@@ -38,6 +38,7 @@ import software.amazon.awssdk.utils.AttributeMap;
 import software.amazon.awssdk.utils.SdkAutoCloseable;
 
 import java.lang.reflect.Method;
+import java.net.URI;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -378,6 +379,9 @@ public class AwsClientFactory implements AutoCloseable {
           .region(selectedRegion)
           .dualstackEnabled(shouldUseDualstack(cfg, selectedRegion))
           .overrideConfiguration(createClientConfig(clientConfig));
+      if (clientConfig.hasPath("endpoint-override")) {
+        builder.endpointOverride(URI.create(clientConfig.getString("endpoint-override")));
+      }
       AttributeMap attributeMap = getSdkHttpConfigurationOptions(clientConfig);
 
       if (builder instanceof AwsSyncClientBuilder<?, ?>) {
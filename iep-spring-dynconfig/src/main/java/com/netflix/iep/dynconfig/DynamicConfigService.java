@@ -21,6 +21,7 @@ import com.netflix.spectator.api.Functions;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spectator.ipc.http.HttpClient;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
 import com.netflix.spectator.ipc.http.HttpResponse;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -31,6 +32,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -38,19 +42,55 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Polls the remote property service to refresh the set of dynamic properties.
+ * Polls the remote property service to refresh the set of dynamic properties. If long
+ * polling is enabled, then the request will include the current version and the server
+ * will hold it until there is a change so that updates are received quickly without
+ * frequent polling.
+ *
+ * <p>If the server provides an {@code ETag}, then subsequent requests will be conditional
+ * and a 304 response will keep the current properties. Otherwise, a digest of the raw body
+ * is used to detect that the content is identical to the previous response. In either case
+ * the properties will not get parsed and the dynamic config will not get updated if there
+ * are no changes.
  */
 class DynamicConfigService extends AbstractService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamicConfigService.class);
 
+  // Extra time on top of the long poll wait before the read times out
+  private static final long READ_TIMEOUT_MARGIN = 10_000L;
+
+  // How long to wait for the long poll loop to exit when stopping. The request that is in
+  // flight cannot be interrupted, so it is abandoned rather than waiting for the server.
+  private static final long LONG_POLL_STOP_TIMEOUT = 1_000L;
+
+  /** Outcome of a request to the remote service. */
+  private enum Result {
+    /** Properties were updated. */
+    CHANGED,
+    /** Request was successful, but the properties were the same as the previous version. */
+    UNCHANGED,
+    /** Request failed. */
+    FAILED
+  }
+
   private final AtomicLong lastUpdateTime;
   private final boolean enabled;
   private final URI uri;
   private final long pollingInterval;
   private final boolean syncInit;
+  private final boolean longPoll;
+  private final long longPollWait;
+  private final long longPollMinInterval;
   private final ScheduledExecutorService executor;
 
+  // ETag from the last successful response, used as the version for conditional requests
+  // and long polling
+  private volatile String etag;
+
+  // Digest of the body for the last successful response
+  private volatile byte[] digest;
+
   DynamicConfigService(Registry registry, Config config) {
     this.lastUpdateTime = PolledMeter.using(registry)
         .withName("iep.archaius.cacheAge")
@@ -62,6 +102,9 @@ class DynamicConfigService extends AbstractService {
     this.uri = URI.create(config.getString("netflix.iep.archaius.url"));
     this.pollingInterval = config.getDuration("netflix.iep.archaius.polling-interval", TimeUnit.MILLISECONDS);
     this.syncInit = config.getBoolean("netflix.iep.archaius.sync-init");
+    this.longPoll = config.getBoolean("netflix.iep.archaius.long-poll.enabled");
+    this.longPollWait = config.getDuration("netflix.iep.archaius.long-poll.wait", TimeUnit.MILLISECONDS);
+    this.longPollMinInterval = config.getDuration("netflix.iep.archaius.long-poll.min-interval", TimeUnit.MILLISECONDS);
     this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
       Thread t = new Thread(r, "DynamicConfigService");
       t.setDaemon(true);
@@ -80,48 +123,142 @@ class DynamicConfigService extends AbstractService {
         }
       }
 
-      // Schedule for regular updates
-      executor.scheduleWithFixedDelay(this::update, pollingInterval, pollingInterval, TimeUnit.MILLISECONDS);
+      if (longPoll) {
+        // Continuously issue requests, the server will hold them until there is a change
+        executor.execute(this::longPollLoop);
+      } else {
+        // Schedule for regular updates
+        executor.scheduleWithFixedDelay(this::update, pollingInterval, pollingInterval, TimeUnit.MILLISECONDS);
+      }
     } else {
       LOGGER.debug("service is disabled, dynamic properties will not be available");
     }
   }
 
   @Override protected void stopImpl() throws Exception {
-    executor.shutdown();
-    executor.awaitTermination(1, TimeUnit.MINUTES);
+    if (longPoll) {
+      // Interrupt the loop, otherwise it would never complete. The blocking read for a
+      // request that is in flight cannot be interrupted, so only wait briefly. The thread
+      // is a daemon and will exit once the request completes, the response is ignored.
+      executor.shutdownNow();
+      if (!executor.awaitTermination(LONG_POLL_STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        LOGGER.info("abandoning in-flight long poll request, thread will exit when it "
+            + "completes or the read times out after {}ms", longPollWait + READ_TIMEOUT_MARGIN);
+      }
+    } else {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  private void longPollLoop() {
+    while (!executor.isShutdown()) {
+      long start = System.currentTimeMillis();
+      Result result = poll();
+      long elapsed = System.currentTimeMillis() - start;
+      long delay;
+      if (result == Result.FAILED) {
+        delay = pollingInterval;
+      } else if (result == Result.UNCHANGED && elapsed < longPollWait / 2) {
+        // The server responded well before the wait time without a change, so it likely
+        // does not support long polling. Fall back to the polling interval rather than
+        // sending a request for every min interval.
+        LOGGER.debug("unchanged response after {}ms, waiting for polling interval", elapsed);
+        delay = pollingInterval - elapsed;
+      } else {
+        delay = longPollMinInterval - elapsed;
+      }
+      if (delay > 0) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private HttpRequestBuilder newRequest() {
+    HttpRequestBuilder builder = HttpClient.DEFAULT_CLIENT.get(uri);
+    String version = etag;
+    if (version != null) {
+      builder.addHeader("If-None-Match", version);
+    }
+    if (longPoll) {
+      // Allow some extra time beyond the wait so that the read doesn't time out before
+      // the server responds
+      long waitSeconds = TimeUnit.MILLISECONDS.toSeconds(longPollWait);
+      builder
+          .addHeader("Prefer", "wait=" + waitSeconds)
+          .withReadTimeout((int) (longPollWait + READ_TIMEOUT_MARGIN));
+    }
+    return builder;
   }
 
   /**
    * Query remote service and update the properties. Returns true if successful.
    */
   boolean update() {
+    return poll() != Result.FAILED;
+  }
+
+  private Result poll() {
     try {
       LOGGER.debug("updating properties from {}", uri);
 
-      HttpResponse response = HttpClient.DEFAULT_CLIENT.get(uri).send();
+      HttpResponse response = newRequest().send();
 
-      if (response.status() == 200) {
-        try (InputStream in = new ByteArrayInputStream(response.entity())) {
-          final Properties props = new Properties();
-          props.load(in);
+      if (longPoll && executor.isShutdown()) {
+        // Service was stopped while the request was in flight
+        LOGGER.debug("service is stopped, ignoring response");
+        return Result.FAILED;
+      }
 
-          if (LOGGER.isTraceEnabled()) {
-            props.stringPropertyNames().forEach(
-                k -> LOGGER.trace("received property: [{}] = [{}]", k, props.getProperty(k)));
-          }
+      Result result = Result.UNCHANGED;
+      if (etag != null && response.status() == 304) {
+        // No changes since the last version, for long polling the wait time expired
+        LOGGER.debug("properties unchanged for version {}", etag);
+        lastUpdateTime.set(System.currentTimeMillis());
+      } else if (response.status() == 200) {
+        byte[] d = sha256(response.entity());
+        if (Arrays.equals(digest, d)) {
+          // Avoid parsing and resolving the config again if the content is identical
+          LOGGER.debug("properties unchanged, payload matches previous response");
+        } else {
+          try (InputStream in = new ByteArrayInputStream(response.entity())) {
+            final Properties props = new Properties();
+            props.load(in);
 
-          updateDynamicConfig(props);
-          lastUpdateTime.set(System.currentTimeMillis());
+            if (LOGGER.isTraceEnabled()) {
+              props.stringPropertyNames().forEach(
+                  k -> LOGGER.trace("received property: [{}] = [{}]", k, props.getProperty(k)));
+            }
+
+            updateDynamicConfig(props);
+            digest = d;
+            result = Result.CHANGED;
+          }
         }
+        etag = response.header("ETag");
+        lastUpdateTime.set(System.currentTimeMillis());
       } else {
         throw new IOException("request failed with status: " + response.status());
       }
 
-      return true;
+      return result;
     } catch (Exception e) {
       LOGGER.warn("failed to update dynamic properties", e);
-      return false;
+      return Result.FAILED;
+    }
+  }
+
+  private static byte[] sha256(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required to be supported by all Java implementations
+      throw new IllegalStateException(e);
     }
   }
 
@@ -18,14 +18,24 @@ package com.netflix.iep.dynconfig;
 import com.netflix.iep.config.ConfigManager;
 import com.netflix.iep.config.DynamicConfigManager;
 import com.netflix.spectator.api.NoopRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DynamicConfigServiceTest {
 
@@ -81,4 +91,284 @@ public class DynamicConfigServiceTest {
     service.updateDynamicConfig(props);
     Assert.assertEquals(override.getConfig("ieptest"), manager.get().getConfig("ieptest"));
   }
+
+  /**
+   * Stub for the property service that supports long polling. If the If-None-Match header
+   * matches the current version, then the request is held until the properties are updated
+   * or the wait time from the Prefer header expires. The request will only be held if the
+   * Prefer header is set and long polling is supported by the stub.
+   */
+  private static final class PropsServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<String> requestHeaders = new ArrayList<>();
+    private final boolean etags;
+    private final boolean longPoll;
+    private int version = 1;
+    private String props;
+    private boolean stopped;
+
+    PropsServer(String props) throws IOException {
+      this(props, true);
+    }
+
+    PropsServer(String props, boolean etags) throws IOException {
+      this(props, etags, true);
+    }
+
+    PropsServer(String props, boolean etags, boolean longPoll) throws IOException {
+      this.props = props;
+      this.etags = etags;
+      this.longPoll = longPoll;
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 10);
+      executor = Executors.newCachedThreadPool();
+      server.setExecutor(executor);
+      server.createContext("/props", this::handle);
+      server.start();
+    }
+
+    String uri() {
+      return "http://localhost:" + server.getAddress().getPort() + "/props";
+    }
+
+    private String etag() {
+      return "\"" + version + "\"";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+      String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+      String etag;
+      byte[] body;
+      synchronized (this) {
+        requestHeaders.add(ifNoneMatch + "|" + prefer);
+        long wait = (prefer == null || !longPoll)
+            ? 0L
+            : 1000L * Long.parseLong(prefer.substring(5));
+        long deadline = System.currentTimeMillis() + wait;
+        long remaining = deadline - System.currentTimeMillis();
+        while (!stopped && etag().equals(ifNoneMatch) && remaining > 0) {
+          try {
+            wait(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+          remaining = deadline - System.currentTimeMillis();
+        }
+        etag = etag();
+        body = props.getBytes(StandardCharsets.UTF_8);
+      }
+
+      if (etags) {
+        exchange.getResponseHeaders().add("ETag", etag);
+      }
+      if (etags && etag.equals(ifNoneMatch)) {
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+      } else {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    }
+
+    synchronized void update(String value) {
+      props = value;
+      ++version;
+      notifyAll();
+    }
+
+    synchronized List<String> requestHeaders() {
+      return new ArrayList<>(requestHeaders);
+    }
+
+    void stop() {
+      synchronized (this) {
+        // Release any requests that are being held
+        stopped = true;
+        notifyAll();
+      }
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void longPoll() throws Exception {
+    PropsServer server = new PropsServer("iep.test.long-poll = 1");
+    Config config = ConfigFactory.parseString(""
+        + "netflix.iep.archaius {\n"
+        + "  enabled = true\n"
+        + "  url = \"" + server.uri() + "\"\n"
+        + "  polling-interval = 100ms\n"
+        + "  long-poll {\n"
+        + "    enabled = true\n"
+        + "    wait = 5s\n"
+        + "    min-interval = 0s\n"
+        + "  }\n"
+        + "}")
+        .withFallback(ConfigManager.get());
+    DynamicConfigService service = new DynamicConfigService(new NoopRegistry(), config);
+    try {
+      // Sync init should have loaded the initial properties
+      service.start();
+      Assert.assertEquals(1, manager.get().getInt("iep.test.long-poll"));
+
+      // Update should be picked up by the held request without waiting for a poll
+      server.update("iep.test.long-poll = 2");
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (manager.get().getInt("iep.test.long-poll") != 2
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, manager.get().getInt("iep.test.long-poll"));
+
+      // Initial request has no version, subsequent ones send the version
+      List<String> headers = server.requestHeaders();
+      Assert.assertEquals("null|wait=5", headers.get(0));
+      Assert.assertEquals("\"1\"|wait=5", headers.get(1));
+    } finally {
+      server.stop();
+      service.stop();
+    }
+  }
+
+  private Config pollingConfig(PropsServer server) {
+    return ConfigFactory.parseString(""
+        + "netflix.iep.archaius {\n"
+        + "  enabled = true\n"
+        + "  url = \"" + server.uri() + "\"\n"
+        + "}")
+        .withFallback(ConfigManager.get());
+  }
+
+  @Test
+  public void unchangedEtag() throws Exception {
+    PropsServer server = new PropsServer("iep.test.unchanged = 1");
+    try {
+      DynamicConfigService service = new DynamicConfigService(
+          new NoopRegistry(), pollingConfig(server));
+      Assert.assertTrue(service.update());
+      Assert.assertEquals(1, manager.get().getInt("iep.test.unchanged"));
+
+      // Clear the override layer, if the response is unchanged, then it should not be
+      // updated again
+      manager.setOverrideConfig(ConfigFactory.empty());
+      Assert.assertTrue(service.update());
+      Assert.assertFalse(manager.get().hasPath("iep.test.unchanged"));
+
+      // Changed properties should get applied
+      server.update("iep.test.unchanged = 2");
+      Assert.assertTrue(service.update());
+      Assert.assertEquals(2, manager.get().getInt("iep.test.unchanged"));
+
+      // Conditional requests should be used once there is a version
+      List<String> headers = server.requestHeaders();
+      Assert.assertEquals("null|null", headers.get(0));
+      Assert.assertEquals("\"1\"|null", headers.get(1));
+      Assert.assertEquals("\"1\"|null", headers.get(2));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void unchangedPayload() throws Exception {
+    PropsServer server = new PropsServer("iep.test.unchanged = 1", false);
+    try {
+      DynamicConfigService service = new DynamicConfigService(
+          new NoopRegistry(), pollingConfig(server));
+      Assert.assertTrue(service.update());
+      Assert.assertEquals(1, manager.get().getInt("iep.test.unchanged"));
+
+      // Clear the override layer, if the payload is unchanged, then it should not be
+      // updated again
+      manager.setOverrideConfig(ConfigFactory.empty());
+      Assert.assertTrue(service.update());
+      Assert.assertFalse(manager.get().hasPath("iep.test.unchanged"));
+
+      // Changed properties should get applied
+      server.update("iep.test.unchanged = 2");
+      Assert.assertTrue(service.update());
+      Assert.assertEquals(2, manager.get().getInt("iep.test.unchanged"));
+
+      // No ETag from the server, so the requests should not be conditional
+      for (String header : server.requestHeaders()) {
+        Assert.assertEquals("null|null", header);
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void longPollStop() throws Exception {
+    PropsServer server = new PropsServer("iep.test.long-poll = 1");
+    Config config = ConfigFactory.parseString(""
+        + "netflix.iep.archaius {\n"
+        + "  enabled = true\n"
+        + "  url = \"" + server.uri() + "\"\n"
+        + "  long-poll {\n"
+        + "    enabled = true\n"
+        + "    wait = 30s\n"
+        + "  }\n"
+        + "}")
+        .withFallback(ConfigManager.get());
+    DynamicConfigService service = new DynamicConfigService(new NoopRegistry(), config);
+    try {
+      service.start();
+
+      // Wait for the long poll request that will be held by the server
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (server.requestHeaders().size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, server.requestHeaders().size());
+
+      // Stop should not wait for the held request to complete
+      long start = System.currentTimeMillis();
+      service.stop();
+      Assert.assertTrue(System.currentTimeMillis() - start < 10_000);
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void longPollNotSupported() throws Exception {
+    PropsServer server = new PropsServer("iep.test.long-poll = 1", true, false);
+    Config config = ConfigFactory.parseString(""
+        + "netflix.iep.archaius {\n"
+        + "  enabled = true\n"
+        + "  url = \"" + server.uri() + "\"\n"
+        + "  polling-interval = 30s\n"
+        + "  long-poll {\n"
+        + "    enabled = true\n"
+        + "    wait = 30s\n"
+        + "    min-interval = 10ms\n"
+        + "  }\n"
+        + "}")
+        .withFallback(ConfigManager.get());
+    DynamicConfigService service = new DynamicConfigService(new NoopRegistry(), config);
+    try {
+      service.start();
+
+      // Wait for the first long poll request, the server will respond immediately
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (server.requestHeaders().size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, server.requestHeaders().size());
+
+      // Unchanged response well before the wait time, it should fall back to the polling
+      // interval rather than sending a request for every min interval
+      Thread.sleep(500);
+      Assert.assertEquals(2, server.requestHeaders().size());
+      service.stop();
+    } finally {
+      server.stop();
+    }
+  }
 }
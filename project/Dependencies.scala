@@ -15,6 +15,7 @@ object Dependencies {
   import Versions._
 
   val assertjcore        = "org.assertj" % "assertj-core" % assertj
+  val aws2AutoScaling    = "software.amazon.awssdk" % "autoscaling" % aws2
   val aws2Core           = "software.amazon.awssdk" % "core" % aws2
   val aws2DynamoDB       = "software.amazon.awssdk" % "dynamodb" % aws2
   val aws2EC2            = "software.amazon.awssdk" % "ec2" % aws2